@@ -0,0 +1,67 @@
+package de.bord.festival.benchmark;
+
+import de.bord.festival.controllers.dataContainers.TicketCounter;
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.Order_;
+import de.bord.festival.models.Ticket;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.ticket.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the work on a filled cart, which is done for every page of the ticket shop and every sale
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+    /**
+     * a cart has 10 tickets at most
+     */
+    @Param({"1", "4", "10"})
+    int cartSize;
+
+    Client client;
+    List<Ticket> tickets;
+    TicketCounter ticketCounter;
+
+    @Setup
+    public void fillCart() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.exampleTicketManager(cartSize, cartSize, cartSize);
+        client = helpClasses.exampleClient();
+        tickets = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            Type type = Type.values()[i % 3];
+            client.addTicket(type, ticketManager);
+            tickets.add(ticketManager.getNewTicket(type));
+        }
+        ticketCounter = new TicketCounter();
+    }
+
+    @Benchmark
+    public int getNumberOfTicketsInBasket() {
+        return client.getNumberOfTicketsInBasket(Type.CAMPING);
+    }
+
+    @Benchmark
+    public int setTicketCounter() {
+        ticketCounter.setTicketCounter(client);
+        return ticketCounter.getCampingTicketCounter();
+    }
+
+    @Benchmark
+    public Order_ newOrder() {
+        return new Order_(tickets);
+    }
+}
@@ -0,0 +1,65 @@
+package de.bord.festival.benchmark;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a large import of bands: 5000 bands are added to an event with 10 days and 20 stages
+ * <p>
+ * Every band is looked up in the bands of the event for the budget and for its time slot.
+ * The bands are added one by one like the form adds them, and in one pass with Event.addBands.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LineUpBenchmark {
+
+    static final int NUMBER_OF_BANDS = 5000;
+    static final int NUMBER_OF_DAYS = 10;
+    static final int NUMBER_OF_STAGES = 20;
+
+    Event event;
+    List<Band> bands;
+
+    @Setup(Level.Invocation)
+    public void createEvent() throws DateDisorderException, TimeDisorderException, PriceLevelException {
+        HelpClasses helpClasses = new HelpClasses();
+        event = Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 5, LocalDate.of(2020, 7, 1),
+                LocalDate.of(2020, 7, NUMBER_OF_DAYS), "Sommerfest", BigDecimal.valueOf(1_000_000),
+                helpClasses.getStage(), helpClasses.exampleTicketManager(), helpClasses.getAddress());
+        for (int i = 2; i <= NUMBER_OF_STAGES; i++) {
+            event.addStage(helpClasses.getStage("Stage" + i));
+        }
+        bands = new ArrayList<>(NUMBER_OF_BANDS);
+        for (int i = 0; i < NUMBER_OF_BANDS; i++) {
+            bands.add(helpClasses.getBand("band" + i, 100, 10));
+        }
+    }
+
+    @Benchmark
+    public int addBands() throws BudgetOverflowException, TimeSlotCantBeFoundException {
+        for (Band band : bands) {
+            event.addBand(band);
+        }
+        return event.getNumberOfBands();
+    }
+
+    @Benchmark
+    public int addBandsInOnePass() {
+        event.addBands(bands);
+        return event.getNumberOfBands();
+    }
+}
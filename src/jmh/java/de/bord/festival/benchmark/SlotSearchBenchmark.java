@@ -0,0 +1,80 @@
+package de.bord.festival.benchmark;
+
+import de.bord.festival.eventManagement.BandAvailabilityIndex;
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.EventInfo;
+import de.bord.festival.models.Program;
+import de.bord.festival.repository.BandRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the search for a time slot on a fragmented day with 20 stages
+ * <p>
+ * The band plays the whole day in another event, so every free time on every stage is tried and rejected
+ * and no time slot is added. Run it with the gc profiler (default of the jmh profile) to see the allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SlotSearchBenchmark {
+
+    static final int NUMBER_OF_STAGES = 20;
+    static final int NUMBER_OF_BANDS = 1000;
+    static final LocalDate DATE = LocalDate.of(2020, 7, 1);
+
+    Program program;
+    Band band;
+    BandAvailabilityIndex bandAvailabilityIndex;
+
+    @Setup
+    public void createFragmentedDay() throws DateDisorderException, TimeDisorderException, PriceLevelException,
+            BudgetOverflowException, TimeSlotCantBeFoundException {
+        HelpClasses helpClasses = new HelpClasses();
+        Event event = Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 5, DATE, DATE,
+                "Sommerfest", BigDecimal.valueOf(1_000_000),
+                helpClasses.getStage(), helpClasses.exampleTicketManager(), helpClasses.getAddress());
+        for (int i = 2; i <= NUMBER_OF_STAGES; i++) {
+            event.addStage(helpClasses.getStage("Stage" + i));
+        }
+        List<Band> bands = new ArrayList<>(NUMBER_OF_BANDS);
+        for (int i = 0; i < NUMBER_OF_BANDS; i++) {
+            Band bandToAdd = helpClasses.getBand("band" + i, 100, 10);
+            event.addBand(bandToAdd);
+            bands.add(bandToAdd);
+        }
+        //every third band leaves a gap
+        for (int i = 0; i < NUMBER_OF_BANDS; i += 3) {
+            event.removeBand(bands.get(i));
+        }
+        program = event.getPrograms().get(DATE);
+
+        BandRepository bandRepository = (BandRepository) Proxy.newProxyInstance(BandRepository.class.getClassLoader(),
+                new Class[]{BandRepository.class}, (proxy, method, arguments) -> null);
+        bandAvailabilityIndex = new BandAvailabilityIndex(bandRepository);
+        band = helpClasses.getBand("busy band", 100, 10);
+        for (LocalDateTime start = LocalDateTime.of(DATE, LocalTime.of(10, 0)); start.getDayOfMonth() == 1;
+             start = start.plusMinutes(30)) {
+            bandAvailabilityIndex.book(band.getName(), start, 30);
+        }
+    }
+
+    @Benchmark
+    public EventInfo addBandWithoutFreeTime() throws TimeSlotCantBeFoundException {
+        return program.addBand(band, DATE, bandAvailabilityIndex);
+    }
+}
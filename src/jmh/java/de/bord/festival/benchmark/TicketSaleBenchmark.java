@@ -0,0 +1,80 @@
+package de.bord.festival.benchmark;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.ticket.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the ticket sale: filling the cart of a client and selling it
+ * <p>
+ * All threads sell from the same TicketManager, every thread is a client with its own cart.
+ * The number of threads is set with -Djmh.threads, e.g. mvn -P jmh verify -Djmh.threads=4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketSaleBenchmark {
+
+    /**
+     * tickets of every type, enough for one iteration
+     */
+    static final int NUMBER_OF_TICKETS = 50_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Festival {
+
+        TicketManager ticketManager;
+
+        @Setup(Level.Iteration)
+        public void createTicketManager() throws PriceLevelException {
+            ticketManager = new HelpClasses().exampleTicketManager(NUMBER_OF_TICKETS, NUMBER_OF_TICKETS, NUMBER_OF_TICKETS);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Buyer {
+
+        /**
+         * a cart has 10 tickets at most
+         */
+        @Param({"1", "4", "10"})
+        int cartSize;
+
+        Client client;
+
+        @Setup(Level.Iteration)
+        public void createClient() throws MailException, ClientNameException {
+            client = new HelpClasses().exampleClient();
+        }
+
+        void fillCart(TicketManager ticketManager) throws TicketNotAvailableException, PriceLevelException {
+            for (int i = 0; i < cartSize; i++) {
+                client.addTicket(Type.values()[i % 3], ticketManager);
+            }
+        }
+    }
+
+    @Benchmark
+    public int addTicket(Festival festival, Buyer buyer) throws TicketNotAvailableException, PriceLevelException {
+        buyer.fillCart(festival.ticketManager);
+        int cartSize = buyer.client.getCartSize();
+        buyer.client.clearCart();
+        return cartSize;
+    }
+
+    @Benchmark
+    public int sellTickets(Festival festival, Buyer buyer) throws TicketNotAvailableException, PriceLevelException {
+        buyer.fillCart(festival.ticketManager);
+        festival.ticketManager.sellTickets(buyer.client);
+        //the orders are not needed, they would only fill the heap
+        buyer.client.getOrders_().clear();
+        return festival.ticketManager.getActualPriceLevelIndex();
+    }
+}
@@ -9,11 +9,13 @@ import de.bord.festival.repository.EventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.List;
 import java.util.Optional;
 
 @SpringBootApplication
+@EnableScheduling
 public class FestivalApplication {
 
     @Autowired
@@ -34,7 +36,7 @@ public class FestivalApplication {
         Event event2 = helper.getValidNDaysEvent1(4);
         Event event3 = helper.getValidNDaysEvent2(5);
 
-        if(eventRepository.findAll().size() == 0) {
+        if(eventRepository.count() == 0) {
             eventRepository.save(event1);
             eventRepository.save(event2);
             eventRepository.save(event3);
@@ -13,8 +13,6 @@ public interface IClient {
 
     public void addTicket(Type type, TicketManager ticketmanager) throws TicketNotAvailableException, PriceLevelException;
 
-    public void addCartToInventory();
-
     public Ticket getCartItem(int index);
 
     public void clearCart();
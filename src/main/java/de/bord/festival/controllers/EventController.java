@@ -1,9 +1,13 @@
 package de.bord.festival.controllers;
 
+import de.bord.festival.controllers.dataContainers.BandListContainer;
 import de.bord.festival.controllers.dataContainers.BandTimeSlotContainer;
 import de.bord.festival.controllers.dataContainers.DateTimeContainer;
 import de.bord.festival.controllers.dataContainers.StageIdContainer;
 import de.bord.festival.controllers.dataContainers.TicketManagerContainer;
+import de.bord.festival.eventManagement.BandAvailabilityIndex;
+import de.bord.festival.eventManagement.EventSummary;
+import de.bord.festival.eventManagement.LineUpScheduler;
 import de.bord.festival.exception.BudgetOverflowException;
 import de.bord.festival.exception.DateDisorderException;
 import de.bord.festival.exception.TimeDisorderException;
@@ -12,8 +16,10 @@ import de.bord.festival.models.*;
 import de.bord.festival.repository.BandRepository;
 import de.bord.festival.repository.EventRepository;
 import de.bord.festival.repository.StageRepository;
+import de.bord.festival.ticket.TicketManagerLanes;
 import de.bord.festival.ticket.Type;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -27,8 +33,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 
@@ -41,6 +47,7 @@ import java.util.List;
  * Show events-  list of events with link to information and update possebility
  * Update event program:
  * add band from all timeslots of program
+ * add many bands at once
  * remove band only from one timeslot
  * add stage
  * remove stage
@@ -50,12 +57,20 @@ public class EventController {
     private final EventRepository eventRepository;
     private final BandRepository bandRepository;
     private final StageRepository stageRepository;
+    private final TicketManagerLanes ticketManagerLanes;
+    private final BandAvailabilityIndex bandAvailabilityIndex;
+    private final LineUpScheduler lineUpScheduler;
 
     @Autowired
-    public EventController(StageRepository stageRepository, EventRepository eventRepository, BandRepository bandRepository) {
+    public EventController(StageRepository stageRepository, EventRepository eventRepository, BandRepository bandRepository,
+                           TicketManagerLanes ticketManagerLanes, BandAvailabilityIndex bandAvailabilityIndex,
+                           LineUpScheduler lineUpScheduler) {
         this.eventRepository = eventRepository;
         this.bandRepository = bandRepository;
         this.stageRepository = stageRepository;
+        this.ticketManagerLanes = ticketManagerLanes;
+        this.bandAvailabilityIndex = bandAvailabilityIndex;
+        this.lineUpScheduler = lineUpScheduler;
     }
 
 
@@ -186,13 +201,18 @@ public class EventController {
      * Mapping shows list of all existing events
      */
     @GetMapping("events")
-    public String getEvents(Model model) {
-
-
-        List<Event> events = eventRepository.findAll();
-        Collections.sort(events, Comparator.comparing(Event::getStartDate));
-        Collections.reverse(events);
+    public String getEvents(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+                            @RequestParam(required = false) Long beforeId, Model model) {
+
+        //only the summaries of one page are read, the latest event first, one more shows if there are earlier events
+        List<EventSummary> events = eventRepository.findPageOfSummaries(beforeDate, beforeId, EventSummary.PAGE_SIZE + 1);
+        boolean hasEarlierEvents = events.size() > EventSummary.PAGE_SIZE;
+        if (hasEarlierEvents) {
+            events = events.subList(0, EventSummary.PAGE_SIZE);
+        }
         model.addAttribute("events", events);
+        model.addAttribute("hasEarlierEvents", hasEarlierEvents);
+        model.addAttribute("isFirstPage", beforeId == null);
         model.addAttribute("title", "Event Overview");
 
         return "events";
@@ -208,6 +228,7 @@ public class EventController {
     public String showProgram(@RequestParam String eventId, Model model) {
         model.addAttribute("title", "Program");
         model.addAttribute("showAddBandModal", false);
+        model.addAttribute("showAddBandsModal", false);
         model.addAttribute("showAddStageModal", false);
         model.addAttribute("showRemoveFromAllTimeslotsModal", false);
         model.addAttribute("showRemoveFromTimeslotModal", false);
@@ -217,7 +238,7 @@ public class EventController {
             return "error/404";
         }
         long eventIdLong = Long.parseLong(eventId);
-        Event event1 = eventRepository.findById(eventIdLong);
+        Event event1 = eventRepository.findWithProgramById(eventIdLong);
         fillModelWithAttributesForProgram(new Band(), event1, model, new BandTimeSlotContainer(), new Stage(), new StageIdContainer());
 
         return "program";
@@ -249,6 +270,69 @@ public class EventController {
     }
 
 
+    /**
+     * Mapping adds many bands to the program of certain event in one pass and saves the event once
+     *
+     * @return program with the added bands, the number of bands, which are not added, otherwise error404
+     */
+    @PostMapping("bands_add")
+    public String addBands(BandListContainer bandListContainer, BindingResult bindingResult,
+                           @RequestParam String eventId,
+                           Model model) {
+
+        if (!isEventIdValid(eventId)) {
+            return "error/404";
+        }
+        long eventIdLong = Long.parseLong(eventId);
+        List<Band> bands = readBands(bandListContainer, bindingResult);
+        if (bindingResult.hasErrors()) {
+            fillModelWithAttributesForProgram(new Band(), eventRepository.findById(eventIdLong), model,
+                    new BandTimeSlotContainer(), new Stage(), new StageIdContainer());
+            model.addAttribute("showAddBandsModal", true);
+            model.addAttribute("title", "Program");
+            return "program";
+        }
+        List<Band> notAddedBands = lineUpScheduler.scheduleBands(eventIdLong, bands);
+        return "redirect:/program?successAddBands&notAdded=" + notAddedBands.size() + "&eventId=" + eventIdLong;
+    }
+
+    /**
+     * reads one band per line: name, phone number, price per event, minutes on stage
+     * the wrong lines are rejected
+     */
+    List<Band> readBands(BandListContainer bandListContainer, BindingResult bindingResult) {
+        List<Band> bands = new ArrayList<>();
+        String text = bandListContainer.getBands() == null ? "" : bandListContainer.getBands();
+        String[] lines = text.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].trim().isEmpty()) {
+                continue;
+            }
+            String[] values = lines[i].split(",");
+            try {
+                if (values.length != 4) {
+                    throw new IllegalArgumentException("4 values are needed");
+                }
+                String name = values[0].trim();
+                String phoneNumber = values[1].trim();
+                double pricePerEvent = Double.parseDouble(values[2].trim());
+                long minutesOnStage = Long.parseLong(values[3].trim());
+                if (name.length() < 2 || name.length() > 50 || phoneNumber.length() < 2 || phoneNumber.length() > 50
+                        || pricePerEvent < 0 || minutesOnStage < 10) {
+                    throw new IllegalArgumentException("a value is out of range");
+                }
+                bands.add(new Band(name, phoneNumber, pricePerEvent, minutesOnStage));
+            } catch (IllegalArgumentException e) {
+                bindingResult.rejectValue("bands", "error.bandListContainer", "Line " + (i + 1) + " is wrong: " + e.getMessage());
+                return bands;
+            }
+        }
+        if (bands.isEmpty()) {
+            bindingResult.rejectValue("bands", "error.bandListContainer", "Please enter at least one band");
+        }
+        return bands;
+    }
+
     /**
      * Model adds stage to the event program
      *
@@ -376,6 +460,9 @@ public class EventController {
         model.addAttribute("bandTimeSlotContainer", bandTimeSlotContainer);
         model.addAttribute("stage", stage);
         model.addAttribute("stageIdContainer", stageIdContainer);
+        if (!model.containsAttribute("bandListContainer")) {
+            model.addAttribute("bandListContainer", new BandListContainer());
+        }
 
 
     }
@@ -393,6 +480,8 @@ public class EventController {
 
         event.getTicketManager().update(newEvent.getTicketManager());
         eventRepository.save(event);
+        //the ticket manager, which sells the tickets, takes the new descriptions in its lane
+        ticketManagerLanes.updateTicketDescriptions(event.getTicketManager().getId(), newEvent.getTicketManager()).join();
 
         setExistingEvent(model, event);
         model.addAttribute("newEvent", false);
@@ -408,8 +497,9 @@ public class EventController {
     String addBand(Event event, Band band, Model model, BindingResult bindingResult) {
 
         try {
+            event.setBandAvailabilityIndex(bandAvailabilityIndex);
             event.addBand(band);
-            eventRepository.save(event);
+            saveEventWithPlaysOf(event, band);
             model.addAttribute("programs", event.getPrograms());
             return "redirect:/program?successAddBand&eventId=" + event.getId();
 
@@ -463,6 +553,7 @@ public class EventController {
     String removeBand(Event event, Model model, BandTimeSlotContainer bandTimeSlotContainer, Band band, BindingResult bindingResult) {
 
         boolean removed = true;
+        event.setBandAvailabilityIndex(bandAvailabilityIndex);
 
         if (isTimeSlotSet(bandTimeSlotContainer)) {
             //check if user didn't choose standard date as yyy-dd-mm
@@ -480,7 +571,7 @@ public class EventController {
             event.removeBand(band);
         }
         if (removed) {
-            eventRepository.save(event);
+            saveEventWithPlaysOf(event, band);
             model.addAttribute("programs", event.getPrograms());
             return "redirect:/program?successRemoveBand&eventId=" + event.getId();
         } else {
@@ -492,6 +583,19 @@ public class EventController {
         }
     }
 
+    /**
+     * saves the event, whose plays of the band were changed in the BandAvailabilityIndex,
+     * if the save fails, the plays of the band are loaded from the database again
+     */
+    private void saveEventWithPlaysOf(Event event, Band band) {
+        try {
+            eventRepository.save(event);
+        } catch (RuntimeException e) {
+            bandAvailabilityIndex.reload(Collections.singletonList(band.getName()));
+            throw e;
+        }
+    }
+
     boolean isTimeSlotSet(BandTimeSlotContainer bandTimeSlotContainer) {
         return bandTimeSlotContainer.getDateTimeToDeleteBand() != null;
     }
@@ -4,6 +4,8 @@ import de.bord.festival.models.Client;
 import de.bord.festival.models.Role;
 import de.bord.festival.repository.ClientRepository;
 import de.bord.festival.repository.EventRepository;
+import de.bord.festival.ticket.SalesJournal;
+import de.bord.festival.ticket.TicketCheckoutService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -24,6 +26,11 @@ public class PagesController {
     @Autowired
     ClientControllerAdvice clientControllerAdvice = new ClientControllerAdvice();
 
+    @Autowired
+    TicketCheckoutService ticketCheckoutService;
+    @Autowired
+    SalesJournal salesJournal;
+
     @GetMapping("/")
     public String index(Model model) {
         model.addAttribute("title", "Home");
@@ -34,6 +41,7 @@ public class PagesController {
             Client client = clientRepository.findById(clientId);
             if (client != null) {
                 if (client.getRole() == Role.ADMIN) {
+                    addCheckoutStatistics(model);
                     return "admin_menu";
                 } else if (client.getRole() == Role.USER) {
                     return "redirect:/user_menu";
@@ -55,6 +63,19 @@ public class PagesController {
     @GetMapping("/admin_menu")
     public String adminMenu(Model model) {
         model.addAttribute("title", "Menu");
+        addCheckoutStatistics(model);
         return "admin_menu";
     }
+
+    /**
+     * Adds the counters of the ticket checkout, to see the contention during on-sale bursts
+     */
+    private void addCheckoutStatistics(Model model) {
+        model.addAttribute("checkouts", ticketCheckoutService.getNumberOfCheckouts());
+        model.addAttribute("checkoutConflicts", ticketCheckoutService.getNumberOfConflicts());
+        model.addAttribute("checkoutRetries", ticketCheckoutService.getNumberOfRetries());
+        model.addAttribute("failedCheckouts", ticketCheckoutService.getNumberOfFailedCheckouts());
+        model.addAttribute("journalRecords", salesJournal.getNumberOfRecords());
+        model.addAttribute("journalGroupCommits", salesJournal.getNumberOfGroupCommits());
+    }
 }
@@ -1,38 +1,42 @@
 package de.bord.festival.controllers;
 
+import de.bord.festival.controllers.dataContainers.PurchaseContainer;
 import de.bord.festival.controllers.dataContainers.TicketCounter;
+import de.bord.festival.eventManagement.EventSummary;
 import de.bord.festival.exception.*;
 import de.bord.festival.models.*;
 import de.bord.festival.repository.ClientRepository;
 import de.bord.festival.repository.EventRepository;
 import de.bord.festival.repository.PriceLevelRepository;
+import de.bord.festival.ticket.BuyerIndex;
+import de.bord.festival.ticket.TicketCheckoutService;
+import de.bord.festival.ticket.TicketHold;
+import de.bord.festival.ticket.TicketManagerLanes;
 import de.bord.festival.ticket.Type;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpSession;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
  * The class controls the management of the shopping cart
  * and the processing of a ticket order
+ * <p>
+ * The controller is a singleton and keeps no state of a user:
+ * the client is loaded for every request, the cart is saved with the client,
+ * the event is passed as request parameter and the result of the last purchase
+ * is kept in the http session of the user.
  */
 
 @Controller
 public class TicketController {
 
-    private Client client;  // the client which is logged in
-
-    private Double expenditureClient; // used for ticketBuyOk()
-
-    private Event event = null;
-    private long eventId = -1;
-    private Long clientId = null;
-    private Exception exception;
-    private TicketCounter ticketCounter = null;
-
     ClientControllerAdvice clientControllerAdvice = new ClientControllerAdvice();
 
     @Autowired EventRepository eventRepository;
@@ -42,48 +46,52 @@ public class TicketController {
     @Autowired
     ClientRepository clientRepository;
 
+    @Autowired
+    TicketCheckoutService ticketCheckoutService;
+
+    @Autowired
+    TicketManagerLanes ticketManagerLanes;
+
+    @Autowired
+    BuyerIndex buyerIndex;
+
     @Autowired
     public TicketController(EventRepository eventRepository) {
         this.eventRepository = eventRepository;
     }
 
     @GetMapping("user_menu")
-    public String createEventOverview(ModelMap model)  {
-
-        model.addAttribute("title", "Menu");
-        clientId = clientControllerAdvice.getClientId();
-
-        client = clientRepository.findById(clientId.intValue());
+    public String createEventOverview(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+                                      @RequestParam(required = false) Long beforeId, ModelMap model, HttpSession session)  {
 
-        List<Event> events = eventRepository.findAll();
+        List<EventSummary> events = eventRepository.findPageOfSummaries(beforeDate, beforeId, EventSummary.PAGE_SIZE + 1);
+        boolean hasEarlierEvents = events.size() > EventSummary.PAGE_SIZE;
+        if (hasEarlierEvents) {
+            events = events.subList(0, EventSummary.PAGE_SIZE);
+        }
 
         model.addAttribute("events", events);
+        model.addAttribute("hasEarlierEvents", hasEarlierEvents);
+        model.addAttribute("isFirstPage", beforeId == null);
         model.addAttribute("title", "Menu");
 
-        eventId = -1;
-        ticketCounter = null;
-        ticketCounter = new TicketCounter();
-
-        clientRepository.save(client);
+        session.removeAttribute(PurchaseContainer.SESSION_ATTRIBUTE);
 
         return "user_menu";
     }
 
     @GetMapping("/buy_ticket_user")
-    public String getBuyTicketUser( @RequestParam (value = "eventId", required = false) long eventId, ModelMap model){
+    public String getBuyTicketUser(@RequestParam (value = "eventId") long eventId, ModelMap model){
 
         model.addAttribute("title", "Buy ticket");
 
-        if(this.eventId == -1) {
-            this.eventId = eventId;
-        }
-        client = clientRepository.findById(clientId.intValue());
-        expenditureClient = null;
-        Event event1 =  eventRepository.findById(this.eventId);
-        event = event1;
-        model.addAttribute("theEvent", event1);
+        Client client = getLoggedInClient();
+        Event event = eventRepository.findById(eventId);
+        model.addAttribute("theEvent", event);
 
-        ticketCounter.setTicketCounter(client);
+        TicketCounter ticketCounter = getTicketCounter(client);
+        //marks the cart as full for the warning
+        ticketCounter.toManyTickets();
 
         model.addAttribute("ticketCounter", ticketCounter);
         model.addAttribute("client", client);
@@ -93,40 +101,51 @@ public class TicketController {
     }
 
     @PostMapping("/addToBasket")
-    public String addTicketToBasket(Type ticketType, ModelMap model) throws MailException, ClientNameException, TicketNotAvailableException, PriceLevelException {
-        if(!ticketCounter.toManyTickets()){
-            client.addTicket(ticketType, event.getTicketManager());
-            clientRepository.save(client);
+    public String addTicketToBasket(Type ticketType, @RequestParam long eventId, ModelMap model) throws TicketNotAvailableException, PriceLevelException {
+        Client client = getLoggedInClient();
+        if(!getTicketCounter(client).toManyTickets()){
+            Event event = eventRepository.findById(eventId);
+            long ticketManagerId = event.getTicketManager().getId();
+            //the ticket is held in the lane of the ticket manager, so it is held for all requests
+            TicketHold hold = TicketManagerLanes.await(ticketManagerLanes.addTicket(ticketManagerId, client, ticketType));
+            try {
+                clientRepository.save(client);
+            } catch (RuntimeException e) {
+                //the ticket is not in the saved cart, so it is not held any more
+                ticketManagerLanes.releaseHold(ticketManagerId, client.getId(), hold).join();
+                throw e;
+            }
         }
 
         return "redirect:/buy_ticket_user?eventId=" +eventId;
     }
 
     @PostMapping("/resetBasket")
-    public String resetBasket(Type ticketType, ModelMap model) throws MailException, ClientNameException, TicketNotAvailableException {
-        client.clearCart();
+    public String resetBasket(@RequestParam long eventId, ModelMap model) {
+        Client client = getLoggedInClient();
+        Event event = eventRepository.findById(eventId);
+        ticketManagerLanes.clearCart(event.getTicketManager().getId(), client).join();
         client.clearExpenditureBasket();
         clientRepository.save(client);
-        ticketCounter = new TicketCounter();
 
         return "redirect:/buy_ticket_user?eventId=" +eventId;
     }
 
     @PostMapping("/buy_ticket")
-    public String buyTicket()  {
+    public String buyTicket(@RequestParam long eventId, HttpSession session)  {
 
+        Client client = getLoggedInClient();
+        TicketCounter ticketCounter = getTicketCounter(client);
         try {
             if(!ticketCounter.areNoTicketsInCart()){
-                expenditureClient = client.getExpenditureByPricesFromCart();
-                event.sellTickets(client);
+                double expenditureClient = client.getExpenditureByPricesFromCart();
+                Event event = eventRepository.findById(eventId);
+                //sells from the ticket manager of the sales journal, saves only the client and a sale record
+                ticketCheckoutService.checkout(client.getId(), event.getTicketManager().getId());
 
-                if(isClientNotInEventlist()){
-                    event.addClient(client);
-                    eventRepository.save(event);
-                }
-                else{
-                    clientRepository.save(client);
-                }
+                buyerIndex.addBuyer(eventId, client.getId());
+                session.setAttribute(PurchaseContainer.SESSION_ATTRIBUTE,
+                        PurchaseContainer.successful(ticketCounter, expenditureClient));
 
                 return "redirect:/ticket_buy_ok?eventId=" +eventId;
             }
@@ -137,25 +156,33 @@ public class TicketController {
 
         }
         catch(TicketNotAvailableException e){
-            exception = e;
+            session.setAttribute(PurchaseContainer.SESSION_ATTRIBUTE, PurchaseContainer.failed(e.getMessage()));
             return "redirect:/ticket_buy_error?eventId=" +eventId;
         }
 
     }
 
     @GetMapping("/ticket_buy_ok")
-    public String getTicketBuyOk(ModelMap model){
-        model.addAttribute("expenditureClient", expenditureClient);
-        model.addAttribute("ticketCounter", ticketCounter);
+    public String getTicketBuyOk(ModelMap model, HttpSession session){
+        PurchaseContainer purchase = (PurchaseContainer) session.getAttribute(PurchaseContainer.SESSION_ATTRIBUTE);
+        if(purchase == null || purchase.getTicketCounter() == null){
+            return "redirect:/user_menu";
+        }
+        model.addAttribute("expenditureClient", purchase.getExpenditureClient());
+        model.addAttribute("ticketCounter", purchase.getTicketCounter());
         model.addAttribute("title", "Purchase successful");
         return "ticket_buy_ok";
     }
 
     @GetMapping("/ticket_buy_error")
-    public String getTicketBuyError(ModelMap model){
+    public String getTicketBuyError(@RequestParam long eventId, ModelMap model, HttpSession session){
+        PurchaseContainer purchase = (PurchaseContainer) session.getAttribute(PurchaseContainer.SESSION_ATTRIBUTE);
+        if(purchase == null || purchase.getErrorMessage() == null){
+            return "redirect:/user_menu";
+        }
 
-        model.addAttribute("event", event);
-        model.addAttribute("exception", exception);
+        model.addAttribute("event", eventRepository.findById(eventId));
+        model.addAttribute("errorMessage", purchase.getErrorMessage());
         model.addAttribute("title", "Purchase error");
         return "ticket_buy_error";
     }
@@ -163,19 +190,22 @@ public class TicketController {
     @GetMapping("/information_user")
     public String getInformationUser(ModelMap model){
 
-        model.addAttribute("client", client);
+        model.addAttribute("client", getLoggedInClient());
         model.addAttribute("title", "Ticket Information");
 
         return "information_user";
     }
 
-    public boolean isClientNotInEventlist(){
-        for(Client client1 : this.event.getClients()){
-            if(this.client.getId() == client1.getId()){
-                return false;
-            }
+    /**
+     * @return the client of the current request
+     */
+    private Client getLoggedInClient() {
+        return clientRepository.findById(clientControllerAdvice.getClientId());
+    }
 
-        }
-        return true;
+    private TicketCounter getTicketCounter(Client client) {
+        TicketCounter ticketCounter = new TicketCounter();
+        ticketCounter.setTicketCounter(client);
+        return ticketCounter;
     }
 }
@@ -0,0 +1,17 @@
+package de.bord.festival.controllers.dataContainers;
+
+/**
+ * Bands of the form, which adds many bands at once,
+ * one band per line: name, phone number, price per event, minutes on stage
+ */
+public class BandListContainer {
+    public void setBands(String bands) {
+        this.bands = bands;
+    }
+
+    public String getBands() {
+        return bands;
+    }
+
+    private String bands;
+}
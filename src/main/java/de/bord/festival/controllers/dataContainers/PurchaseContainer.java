@@ -0,0 +1,42 @@
+package de.bord.festival.controllers.dataContainers;
+
+import java.io.Serializable;
+
+/**
+ * the class keeps the result of the last purchase of a user in the http session,
+ * it is shown after the redirect to ticket_buy_ok or ticket_buy_error
+ */
+
+public class PurchaseContainer implements Serializable {
+
+    public static final String SESSION_ATTRIBUTE = "purchase";
+
+    private TicketCounter ticketCounter;
+    private double expenditureClient;
+    private String errorMessage;
+
+    public static PurchaseContainer successful(TicketCounter ticketCounter, double expenditureClient) {
+        PurchaseContainer purchase = new PurchaseContainer();
+        purchase.ticketCounter = ticketCounter;
+        purchase.expenditureClient = expenditureClient;
+        return purchase;
+    }
+
+    public static PurchaseContainer failed(String errorMessage) {
+        PurchaseContainer purchase = new PurchaseContainer();
+        purchase.errorMessage = errorMessage;
+        return purchase;
+    }
+
+    public TicketCounter getTicketCounter() {
+        return ticketCounter;
+    }
+
+    public double getExpenditureClient() {
+        return expenditureClient;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
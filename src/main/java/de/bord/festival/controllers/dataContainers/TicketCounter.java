@@ -3,11 +3,13 @@ package de.bord.festival.controllers.dataContainers;
 import de.bord.festival.models.Client;
 import de.bord.festival.ticket.Type;
 
+import java.io.Serializable;
+
 /**
  * the class provides information about the data (number of tickets) in the shopping cart
  */
 
-public class TicketCounter {
+public class TicketCounter implements Serializable {
 
     private int dayTicketCounter;
     private int campingTicketCounter;
@@ -0,0 +1,194 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Minutes;
+import de.bord.festival.repository.BandRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Knows, when every band plays in all events, so a band is not booked by two events at the same time
+ * <p>
+ * The plays of every band are kept in arrays of their start and end minutes (since 1970-01-01) sorted by the start,
+ * so an overlapping play is found in O(log n) of the plays of the band without creating objects.
+ * The plays from today on are loaded from the database at startup,
+ * afterwards the events add and remove the plays of their bands (see Event.setBandAvailabilityIndex).
+ * The events change the index before they are saved. If the save fails, the plays of the changed bands
+ * are loaded again (see reload), so the index has the plays of the database again.
+ */
+@Component
+public class BandAvailabilityIndex {
+
+    private final BandRepository bandRepository;
+    private final Map<String, PlaysOfBand> playsOfBands = new HashMap<>();
+
+    @Autowired
+    public BandAvailabilityIndex(BandRepository bandRepository) {
+        this.bandRepository = bandRepository;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        playsOfBands.clear();
+        for (BandBooking booking : bandRepository.findBookingsFrom(LocalDate.now())) {
+            book(booking.getNameOfBand(), booking.getStart(), booking.getMinutesOnStage());
+        }
+    }
+
+    /**
+     * Loads the plays of the bands from the database again, the plays of the other bands are kept
+     * It is called, if a change of the plays of the bands could not be saved.
+     *
+     * @param namesOfBands
+     */
+    public void reload(Collection<String> namesOfBands) {
+        List<BandBooking> bookings = bandRepository.findBookingsOfBandsFrom(namesOfBands, LocalDate.now());
+        synchronized (this) {
+            playsOfBands.keySet().removeAll(namesOfBands);
+            for (BandBooking booking : bookings) {
+                book(booking.getNameOfBand(), booking.getStart(), booking.getMinutesOnStage());
+            }
+        }
+    }
+
+    /**
+     * Finds a play of the band, which overlaps the given time
+     *
+     * @param nameOfBand
+     * @param start          start of the new play
+     * @param minutesOnStage minutes of the new play
+     * @return end of the overlapping play, null if the band is free
+     */
+    public LocalDateTime findEndOfOverlappingPlay(String nameOfBand, LocalDateTime start, long minutesOnStage) {
+        long end = findEndOfOverlappingPlay(nameOfBand, Minutes.ofEpoch(start), minutesOnStage);
+        return end == -1 ? null : Minutes.toLocalDateTime(end);
+    }
+
+    /**
+     * Finds a play of the band, which overlaps the given time
+     *
+     * @param nameOfBand
+     * @param start          start of the new play in minutes since 1970-01-01
+     * @param minutesOnStage minutes of the new play
+     * @return end of the overlapping play in minutes since 1970-01-01, -1 if the band is free
+     */
+    public synchronized long findEndOfOverlappingPlay(String nameOfBand, long start, long minutesOnStage) {
+        PlaysOfBand plays = playsOfBands.get(nameOfBand);
+        if (plays == null) {
+            return -1;
+        }
+        return plays.findEndOfOverlappingPlay(start, start + minutesOnStage);
+    }
+
+    /**
+     * @param nameOfBand
+     * @param start          start of the play
+     * @param minutesOnStage minutes of the play
+     */
+    public void book(String nameOfBand, LocalDateTime start, long minutesOnStage) {
+        book(nameOfBand, Minutes.ofEpoch(start), minutesOnStage);
+    }
+
+    /**
+     * @param nameOfBand
+     * @param start          start of the play in minutes since 1970-01-01
+     * @param minutesOnStage minutes of the play
+     */
+    public synchronized void book(String nameOfBand, long start, long minutesOnStage) {
+        playsOfBands.computeIfAbsent(nameOfBand, name -> new PlaysOfBand()).put(start, start + minutesOnStage);
+    }
+
+    /**
+     * @param nameOfBand
+     * @param start start of the play, which is cancelled
+     */
+    public void release(String nameOfBand, LocalDateTime start) {
+        release(nameOfBand, Minutes.ofEpoch(start));
+    }
+
+    /**
+     * @param nameOfBand
+     * @param start start of the play, which is cancelled, in minutes since 1970-01-01
+     */
+    public synchronized void release(String nameOfBand, long start) {
+        PlaysOfBand plays = playsOfBands.get(nameOfBand);
+        if (plays != null) {
+            plays.remove(start);
+            if (plays.size == 0) {
+                playsOfBands.remove(nameOfBand);
+            }
+        }
+    }
+
+    /**
+     * start and end minutes of the plays of one band, sorted by the start, a start is there only once
+     */
+    private static class PlaysOfBand {
+        private long[] starts = new long[4];
+        private long[] ends = new long[4];
+        private int size;
+
+        long findEndOfOverlappingPlay(long start, long end) {
+            int index = findFirstIndexAfter(start);
+            //the play before can last until the new play starts
+            if (index > 0 && ends[index - 1] > start) {
+                return ends[index - 1];
+            }
+            if (index < size && starts[index] < end) {
+                return ends[index];
+            }
+            return -1;
+        }
+
+        void put(long start, long end) {
+            int index = findFirstIndexAfter(start);
+            if (index > 0 && starts[index - 1] == start) {
+                ends[index - 1] = end;
+                return;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * size);
+                ends = Arrays.copyOf(ends, 2 * size);
+            }
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            starts[index] = start;
+            ends[index] = end;
+            size++;
+        }
+
+        void remove(long start) {
+            int index = findFirstIndexAfter(start) - 1;
+            if (index >= 0 && starts[index] == start) {
+                System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+                System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+                size--;
+            }
+        }
+
+        /**
+         * @return index of the first play, which starts after the given minute
+         */
+        private int findFirstIndexAfter(long minute) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] > minute) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package de.bord.festival.eventManagement;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A play of a band in one of the events: the band plays from start for the minutes on stage
+ */
+public class BandBooking {
+    private final String nameOfBand;
+    private final LocalDateTime start;
+    private final long minutesOnStage;
+
+    public BandBooking(String nameOfBand, LocalDate date, LocalTime time, long minutesOnStage) {
+        this.nameOfBand = nameOfBand;
+        this.start = LocalDateTime.of(date, time);
+        this.minutesOnStage = minutesOnStage;
+    }
+
+    public String getNameOfBand() {
+        return nameOfBand;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return start.plusMinutes(minutesOnStage);
+    }
+
+    public long getMinutesOnStage() {
+        return minutesOnStage;
+    }
+}
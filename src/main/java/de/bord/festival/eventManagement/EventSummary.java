@@ -0,0 +1,62 @@
+package de.bord.festival.eventManagement;
+
+import java.time.LocalDate;
+
+/**
+ * The data of an event, which the lists of events show
+ * <p>
+ * It is read by one query (see EventRepository.findSummaries), so the line-up, the clients
+ * and the tickets of the event are not loaded.
+ * The tickets left are read from the persisted TicketManager, so they may not contain the sales
+ * of the last milliseconds, which the SalesJournal has not folded in yet.
+ */
+public class EventSummary {
+    /**
+     * number of events on one page of a list
+     */
+    public static final int PAGE_SIZE = 24;
+
+    private final long id;
+    private final String name;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final String city;
+    private final int numberOfTicketsLeft;
+
+    public EventSummary(long id, String name, LocalDate startDate, LocalDate endDate, String city,
+                        int numberOfTicketsLeft) {
+        this.id = id;
+        this.name = name;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.city = city;
+        this.numberOfTicketsLeft = numberOfTicketsLeft;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * @return day, camping and vip tickets, which are not sold, as they were saved last
+     */
+    public int getNumberOfTicketsLeft() {
+        return numberOfTicketsLeft;
+    }
+}
@@ -9,15 +9,17 @@ import de.bord.festival.exception.*;
 import de.bord.festival.models.Stage;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface IEvent {
 
     boolean addStage(Stage stage);
     boolean removeStage(String stageName);
     EventInfo addBand(Band band) throws BudgetOverflowException, TimeSlotCantBeFoundException;
+    List<Band> addBands(List<Band> bands);
     boolean removeBand(Band band);
     boolean removeBand(Band band, LocalDateTime dateAndTime);
-    void addToTheActualCosts(double amount);
+    void addToTheActualCosts(long amountInCents);
     void sellTickets(Client client) throws  TicketNotAvailableException;//ticketmanager
     boolean setPriceLevel(int index) throws PriceLevelNotAvailableException;
 }
@@ -0,0 +1,102 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.repository.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closes the gaps, which removed bands leave in the programs of the events (see Event.compactLineUp)
+ * <p>
+ * The job runs only, if the property festival.compaction.cron is set (e.g. 0 0 4 * * * for every night).
+ * Only events, which start after today, are compacted, the programs of running and past events stay as they are.
+ * Every event is compacted in its own transaction, an event, which can not be compacted, is logged and skipped.
+ * Only the moved time slots and event infos are changed, so only their rows are updated.
+ */
+@Component
+public class LineUpCompactor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LineUpCompactor.class);
+    private static final int PAGE_SIZE = 100;
+
+    private final EventRepository eventRepository;
+    private final BandAvailabilityIndex bandAvailabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LineUpCompactor(EventRepository eventRepository, BandAvailabilityIndex bandAvailabilityIndex,
+                           PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.bandAvailabilityIndex = bandAvailabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${festival.compaction.cron:-}")
+    public void compactAllEvents() {
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        long recoveredMinutes = 0;
+        int numberOfFailedEvents = 0;
+        for (List<Long> eventIds = findEventIdsAfter(firstDay, 0); !eventIds.isEmpty();
+             eventIds = findEventIdsAfter(firstDay, getLast(eventIds))) {
+            for (long eventId : eventIds) {
+                try {
+                    recoveredMinutes += compact(eventId);
+                } catch (RuntimeException e) {
+                    numberOfFailedEvents++;
+                    LOG.error("The line-up of event " + eventId + " could not be compacted", e);
+                }
+            }
+        }
+        LOG.info("{} minutes of stage time recovered, {} events could not be compacted", recoveredMinutes, numberOfFailedEvents);
+    }
+
+    /**
+     * The plays of the bands are moved in the BandAvailabilityIndex, while the event is compacted.
+     * If the transaction fails, the plays of the bands of the event are loaded from the database again.
+     *
+     * @param eventId id of an existing event
+     * @return recovered minutes of stage time
+     */
+    public long compact(long eventId) {
+        List<String> namesOfBands = new ArrayList<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                Event event = eventRepository.findById(eventId);
+                for (Band band : event.getBands()) {
+                    namesOfBands.add(band.getName());
+                }
+                event.setBandAvailabilityIndex(bandAvailabilityIndex);
+                long recoveredMinutes = event.compactLineUp();
+                eventRepository.save(event);
+                return recoveredMinutes;
+            });
+        } catch (RuntimeException e) {
+            if (!namesOfBands.isEmpty()) {
+                bandAvailabilityIndex.reload(namesOfBands);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * the ids are read page by page, so they are not all kept in memory
+     */
+    private List<Long> findEventIdsAfter(LocalDate firstDay, long eventId) {
+        return eventRepository.findIdsStartingFromGreaterThan(firstDay, eventId, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    private static long getLast(List<Long> eventIds) {
+        return eventIds.get(eventIds.size() - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the line-up of an event with many bands at once
+ * <p>
+ * The bands are added to all days and stages in one pass (see Event.addBands)
+ * and the event is saved once, all in one transaction.
+ * A band is not added at a time, at which it plays in another event.
+ * The plays are booked in the BandAvailabilityIndex, while the bands are added.
+ * If the transaction fails, the plays of the bands are loaded from the database again.
+ */
+@Service
+public class LineUpScheduler {
+
+    private final EventRepository eventRepository;
+    private final BandAvailabilityIndex bandAvailabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LineUpScheduler(EventRepository eventRepository, BandAvailabilityIndex bandAvailabilityIndex,
+                           PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.bandAvailabilityIndex = bandAvailabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds the bands to the line-up of the event and saves the event
+     *
+     * @param eventId id of an existing event
+     * @param bands   bands, which should be added
+     * @return bands, which are not added, because the budget or the free time is not enough
+     */
+    public List<Band> scheduleBands(long eventId, List<Band> bands) {
+        List<String> namesOfBands = new ArrayList<>();
+        for (Band band : bands) {
+            namesOfBands.add(band.getName());
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                Event event = eventRepository.findById(eventId);
+                event.setBandAvailabilityIndex(bandAvailabilityIndex);
+                List<Band> notAddedBands = event.addBands(bands);
+                eventRepository.save(event);
+                return notAddedBands;
+            });
+        } catch (RuntimeException e) {
+            bandAvailabilityIndex.reload(namesOfBands);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.Program;
+import de.bord.festival.models.TimeSlotList;
+import de.bord.festival.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tries many scenarios of changes of a line-up without saving them
+ * <p>
+ * Every scenario is applied to its own copy of the event, the copies share the programs of the days
+ * with the event, until they change them. The scenarios run in parallel in the common ForkJoinPool.
+ */
+@Service
+public class LineUpSimulator {
+
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LineUpSimulator(EventRepository eventRepository, PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @param eventId   id of an existing event
+     * @param scenarios scenarios, which should be tried
+     * @return results in the order of the scenarios
+     */
+    public List<ScenarioResult> simulate(long eventId, List<Scenario> scenarios) {
+        Event event = transactionTemplate.execute(status -> {
+            Event loadedEvent = eventRepository.findById(eventId);
+            loadLineUp(loadedEvent);
+            return loadedEvent;
+        });
+        return simulate(event, scenarios);
+    }
+
+    /**
+     * @param event     the event, which is not changed
+     * @param scenarios scenarios, which should be tried
+     * @return results in the order of the scenarios
+     */
+    public List<ScenarioResult> simulate(Event event, List<Scenario> scenarios) {
+        return scenarios.parallelStream()
+                .map(scenario -> scenario.simulate(event))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * the lazy collections of the line-up are loaded in the transaction, so the copies can read them in other threads
+     */
+    private void loadLineUp(Event event) {
+        event.getNumberOfStages();
+        for (Band band : event.getBands()) {
+            band.getEventInfos().size();
+        }
+        for (Program program : event.getProgramsOfDaysWithBands()) {
+            for (TimeSlotList timeSlotList : program.getProgramsForStages().values()) {
+                timeSlotList.getTimeSlots().size();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Address;
+import de.bord.festival.models.PriceLevel;
+import de.bord.festival.models.Stage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Second level cache of the reference entities: stages, price levels and addresses
+ * <p>
+ * The cache is READ_WRITE, so hibernate updates the cached entities, when they are saved,
+ * and does not use results of the cacheable queries, whose tables were changed afterwards.
+ * Bands are not cached, their plays change with every change of a program.
+ * The hit ratio of every region is published as the metric festival.cache.hit.ratio (see /actuator/metrics).
+ * It needs the hibernate statistics, which are turned on with the profile stats,
+ * without them the metric is not registered.
+ */
+@Component
+public class ReferenceDataCache implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    static final Class<?>[] CACHED_ENTITIES = {Stage.class, PriceLevel.class, Address.class};
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * @param entityClass one of the cached entities
+     * @return hits divided by all reads of the region since the start,
+     * NaN if it was not read yet or the statistics are turned off
+     */
+    public double getHitRatio(Class<?> entityClass) {
+        CacheRegionStatistics statistics = getSessionFactory().getStatistics()
+                .getDomainDataRegionStatistics(entityClass.getName());
+        long reads = statistics.getHitCount() + statistics.getMissCount();
+        return reads == 0 ? Double.NaN : (double) statistics.getHitCount() / reads;
+    }
+
+    /**
+     * Registers the hit ratios, if the hibernate statistics are turned on
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!getSessionFactory().getStatistics().isStatisticsEnabled()) {
+            LOG.info("The hibernate statistics are turned off, festival.cache.hit.ratio is not registered");
+            return;
+        }
+        for (Class<?> entityClass : CACHED_ENTITIES) {
+            Gauge.builder("festival.cache.hit.ratio", this, cache -> cache.getHitRatio(entityClass))
+                    .tag("region", entityClass.getSimpleName())
+                    .description("hits divided by all reads of the second level cache region")
+                    .register(registry);
+        }
+    }
+
+    private SessionFactory getSessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
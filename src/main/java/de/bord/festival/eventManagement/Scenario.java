@@ -0,0 +1,145 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.exception.BudgetOverflowException;
+import de.bord.festival.exception.TimeSlotCantBeFoundException;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.Stage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of a line-up, which are tried by the LineUpSimulator
+ * <p>
+ * The changes are applied in the given order to a copy of the event (see Event.fork).
+ * The given bands are copied too, so one scenario can be tried many times and in parallel.
+ */
+public class Scenario {
+
+    /**
+     * a change of the line-up
+     */
+    private interface Change {
+        /**
+         * @return bands, which could not be added
+         */
+        List<Band> applyTo(Event event);
+    }
+
+    private final String name;
+    private final List<Change> changes = new ArrayList<>();
+
+    public Scenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * see Event.addBand
+     */
+    public Scenario addBand(Band band) {
+        changes.add(event -> {
+            try {
+                event.addBand(band.copy());
+                return Collections.emptyList();
+            } catch (BudgetOverflowException | TimeSlotCantBeFoundException e) {
+                return Collections.singletonList(band);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * see Event.addBands
+     */
+    public Scenario addBands(List<Band> bands) {
+        changes.add(event -> {
+            Map<Band, Band> bandsOfCopies = new IdentityHashMap<>();
+            List<Band> copies = new ArrayList<>(bands.size());
+            for (Band band : bands) {
+                Band copy = band.copy();
+                bandsOfCopies.put(copy, band);
+                copies.add(copy);
+            }
+            List<Band> notAddedBands = new ArrayList<>();
+            for (Band copy : event.addBands(copies)) {
+                notAddedBands.add(bandsOfCopies.get(copy));
+            }
+            return notAddedBands;
+        });
+        return this;
+    }
+
+    /**
+     * see Event.removeBand(Band)
+     */
+    public Scenario removeBand(Band band) {
+        changes.add(event -> {
+            Band bandOfEvent = event.getBand(band);
+            if (bandOfEvent != null) {
+                event.removeBand(bandOfEvent);
+            }
+            return Collections.emptyList();
+        });
+        return this;
+    }
+
+    /**
+     * see Event.removeBand(Band, LocalDateTime)
+     */
+    public Scenario removeBand(Band band, LocalDateTime dateAndTime) {
+        changes.add(event -> {
+            Band bandOfEvent = event.getBand(band);
+            if (bandOfEvent != null) {
+                event.removeBand(bandOfEvent, dateAndTime);
+            }
+            return Collections.emptyList();
+        });
+        return this;
+    }
+
+    /**
+     * see Event.addStage
+     */
+    public Scenario addStage(String stageName) {
+        changes.add(event -> {
+            event.addStage(new Stage(stageName));
+            return Collections.emptyList();
+        });
+        return this;
+    }
+
+    /**
+     * see Event.removeStage
+     */
+    public Scenario removeStage(String stageName) {
+        changes.add(event -> {
+            event.removeStage(stageName);
+            return Collections.emptyList();
+        });
+        return this;
+    }
+
+    /**
+     * Applies all changes to a copy of the event
+     *
+     * @param event the event, which is not changed
+     * @return the changed copy of the event with its costs, stage utilisation and the bands, which could not be added
+     */
+    ScenarioResult simulate(Event event) {
+        Event fork = event.fork();
+        List<Band> notAddedBands = new ArrayList<>();
+        for (Change change : changes) {
+            notAddedBands.addAll(change.applyTo(fork));
+        }
+        return new ScenarioResult(name, fork, notAddedBands);
+    }
+}
@@ -0,0 +1,51 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a scenario: the changed copy of the event, its costs, the stage utilisation
+ * and the bands, which could not be added
+ */
+public class ScenarioResult {
+    private final String nameOfScenario;
+    private final Event event;
+    private final List<Band> notAddedBands;
+    private final Map<String, Double> stageUtilisation;
+
+    ScenarioResult(String nameOfScenario, Event event, List<Band> notAddedBands) {
+        this.nameOfScenario = nameOfScenario;
+        this.event = event;
+        this.notAddedBands = notAddedBands;
+        this.stageUtilisation = event.getLineUp().getStageUtilisation();
+    }
+
+    public String getNameOfScenario() {
+        return nameOfScenario;
+    }
+
+    /**
+     * @return the changed copy of the event, it is not saved
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    public double getActualCosts() {
+        return event.getActualCosts();
+    }
+
+    /**
+     * @return part of the time of all days, in which bands play on the stage (0 to 1) by name of the stage
+     */
+    public Map<String, Double> getStageUtilisation() {
+        return stageUtilisation;
+    }
+
+    public List<Band> getNotAddedBands() {
+        return notAddedBands;
+    }
+}
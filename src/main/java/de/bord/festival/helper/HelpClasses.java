@@ -111,6 +111,10 @@ public class HelpClasses {
     }
 
     public TicketManager exampleTicketManager() throws PriceLevelException {
+        return exampleTicketManager(10, 20, 30);
+    }
+
+    public TicketManager exampleTicketManager(int numberOfDayTickets, int numberOfCampingTickets, int numberOfVipTickets) throws PriceLevelException {
         PriceLevel p1 = new PriceLevel(20.00, 39.99, 54.99,
                 70.00);
         PriceLevel p2 = new PriceLevel(30.00, 49.99, 52.49,
@@ -126,7 +130,8 @@ public class HelpClasses {
         CampingTicket campingTicket = new CampingTicket("Sommerfest:Erfurt:2020-08-20:day:Camp", 80.00);
         VIPTicket vipTicket = new VIPTicket("Sommerfest:Erfurt:2020-08-20:day:VIP", 101.99);
 
-        return new TicketManager(priceLevels, 10,20,30, dayTicket, campingTicket, vipTicket);
+        return new TicketManager(priceLevels, numberOfDayTickets, numberOfCampingTickets, numberOfVipTickets,
+                dayTicket, campingTicket, vipTicket);
     }
 
     public TicketManager example2TicketManager() throws PriceLevelException {
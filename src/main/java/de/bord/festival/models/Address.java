@@ -1,5 +1,9 @@
 package de.bord.festival.models;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
@@ -9,6 +13,8 @@ import javax.validation.constraints.Size;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Address extends AbstractModel {
     @Size(min = 2, max = 30)
     @NotNull
@@ -21,9 +21,7 @@ public class Band extends AbstractModel {
     @NotNull
     @Size(min = 2, max = 50)
     private String phoneNumber;
-    @NotNull
-    @Min(10)
-    private double pricePerEvent;
+    private Money pricePerEvent = Money.ZERO;
     @OneToMany(cascade = CascadeType.ALL)
     private List<EventInfo> eventInfos;
     @NotNull
@@ -42,10 +40,25 @@ public class Band extends AbstractModel {
         eventInfos = new LinkedList<>();
         this.name = name;
         this.phoneNumber = phoneNumber;
-        this.pricePerEvent = pricePerEvent;
+        this.pricePerEvent = Money.of(pricePerEvent);
         this.minutesOnStage=minutesOnStage;
     }
 
+    /**
+     * @return copy of this band with copies of the event infos, which is not saved
+     */
+    public Band copy() {
+        Band copy = new Band();
+        copy.name = name;
+        copy.phoneNumber = phoneNumber;
+        copy.pricePerEvent = pricePerEvent;
+        copy.minutesOnStage = minutesOnStage;
+        for (EventInfo eventInfo : eventInfos) {
+            copy.eventInfos.add(eventInfo.copy());
+        }
+        return copy;
+    }
+
     /**
      * @param eventInfo adds new time, date and place of play
      */
@@ -100,9 +113,17 @@ public class Band extends AbstractModel {
         return false;
     }
 
+    /**
+     * Bands with the same name have the same hash code, see equals
+     */
+    @Override
+    public int hashCode() {
+        return name == null ? 0 : name.hashCode();
+    }
+
     public void setName(String name) { this.name = name; }
     public void setPhoneNumber(String phoneNumber) { this.phoneNumber = phoneNumber; }
-    public void setPricePerEvent(double pricePerEvent) { this.pricePerEvent = pricePerEvent; }
+    public void setPricePerEvent(double pricePerEvent) { this.pricePerEvent = Money.of(pricePerEvent); }
 
     public List<EventInfo> getEventInfos(){
         return this.eventInfos;
@@ -111,7 +132,13 @@ public class Band extends AbstractModel {
         return name;
     }
     public String getPhoneNumber() { return phoneNumber; }
+    @NotNull
+    @Min(10)
     public double getPricePerEvent() {
-        return pricePerEvent;
+        return pricePerEvent.toDouble();
+    }
+
+    public long getPricePerEventInCents() {
+        return pricePerEvent.getCents();
     }
 }
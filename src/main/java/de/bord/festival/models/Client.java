@@ -5,6 +5,7 @@ import de.bord.festival.exception.ClientNameException;
 import de.bord.festival.exception.MailException;
 import de.bord.festival.exception.PriceLevelException;
 import de.bord.festival.exception.TicketNotAvailableException;
+import de.bord.festival.ticket.TicketHold;
 import de.bord.festival.ticket.Type;
 
 import javax.persistence.*;
@@ -23,22 +24,31 @@ public class Client extends AbstractModel implements IClient {
     private String mail;
     private String password;
     private Role role;
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    private List<Ticket> inventory;
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Ticket> cart;
-    private double expenditure = 0.0;
-    private double expenditureBasket = 0.0;
+    /**
+     * holds of the tickets in the cart, they expire if the cart is not bought in time
+     */
+    @Transient
+    private List<TicketHold> holds = new LinkedList<>();
+    /**
+     * in cents
+     */
+    private long expenditure;
+    /**
+     * in cents
+     */
+    private long expenditureBasket;
 
 
     @OneToMany(cascade = CascadeType.ALL)
-     private List<Order_> orders_;
+    @JoinColumn(name = "client_id", nullable = false, updatable = false)
+    private List<Order_> orders_;
 
     public Client(){}
 
     public Client(String firstname, String lastname, String mail, String password, Address address, Role role)
     {
-        inventory = new LinkedList<Ticket>();
         cart = new LinkedList<Ticket>();
        orders_ = new LinkedList<Order_>();
         this.firstname = firstname;
@@ -111,6 +121,8 @@ public class Client extends AbstractModel implements IClient {
 
     /**
      * Called when a Client adds a ticket to his shoppingcart
+     * The ticket is held for the client for a short time,
+     * the hold is given back, if the ticket can not be added to the cart
      *
      * @param type type
      * @param ticketmanager ticketmanager
@@ -118,21 +130,18 @@ public class Client extends AbstractModel implements IClient {
      */
 
     public void addTicket(Type type, TicketManager ticketmanager) throws TicketNotAvailableException, PriceLevelException {
-        if(!ticketmanager.isAvailable(type, 1)) {
-            throw new TicketNotAvailableException("No more tickets available");
+        TicketHold hold = ticketmanager.holdTicket(type);
+        Ticket ticket;
+        try {
+            ticket = ticketmanager.getNewTicket(type);
+        } catch (RuntimeException e) {
+            hold.release();
+            throw e;
         }
-                Ticket ticket = ticketmanager.getNewTicket(type);
 
-                this.cart.add(ticket);
-                this.expenditureBasket += ticket.getStdPrice();
-    }
-
-    /**
-     * Called when a Client buys his whole shopping-cart
-     * Adds the bought tickets to his inventory
-     */
-    public void addCartToInventory(){
-        inventory.addAll(cart);
+        this.cart.add(ticket);
+        this.holds.add(hold);
+        this.expenditureBasket = Money.plusCents(expenditureBasket, ticket.getStdPriceInCents());
     }
 
     /**
@@ -143,12 +152,32 @@ public class Client extends AbstractModel implements IClient {
 
     public int getCartSize(){ return cart.size(); }
 
-    public int getInventorySize(){ return inventory.size(); }
+    /**
+     * @return number of all bought tickets, they are kept in the order lines of the orders
+     */
+    public int getInventorySize(){
+        int inventorySize = 0;
+        for (Order_ order : orders_) {
+            inventorySize += order.getNumberOfTickets();
+        }
+        return inventorySize;
+    }
 
+    /**
+     * Clears the cart, the held tickets which are not sold are given back
+     */
     public void clearCart(){
+        for (TicketHold hold : holds) {
+            hold.release();
+        }
+        this.holds.clear();
         this.cart.clear();
     }
 
+    public List<TicketHold> getHolds() {
+        return holds;
+    }
+
     public void clearExpenditureBasket(){
         expenditureBasket = 0;
     }
@@ -157,9 +186,15 @@ public class Client extends AbstractModel implements IClient {
      * Adds to the expenditure attribute of Client
      * @param expenditure
      */
-    public void setExpenditure(double expenditure) { this.expenditure += expenditure; }
+    public void setExpenditure(double expenditure) { addToExpenditure(Money.of(expenditure).getCents()); }
 
-    public double getExpenditure(){return expenditure;}
+    /**
+     * Adds to the expenditure attribute of Client
+     * @param expenditureInCents
+     */
+    public void addToExpenditure(long expenditureInCents) { this.expenditure = Money.plusCents(expenditure, expenditureInCents); }
+
+    public double getExpenditure(){return Money.ofCents(expenditure).toDouble();}
 
     public int getNumberOfAllTicketsInBasket(){
         int ticketcounter = 0;
@@ -213,7 +248,7 @@ public class Client extends AbstractModel implements IClient {
    // public void setRole(String role) { this.role=role; }
 
     public double getExpenditureBasket() {
-        return expenditureBasket;
+        return Money.ofCents(expenditureBasket).toDouble();
     }
 
    public List<Order_> getOrders_() {
@@ -227,10 +262,14 @@ public class Client extends AbstractModel implements IClient {
 
 
     public double getExpenditureByPricesFromCart(){
-        double  expenditureBasket_ = 0.0;
+        return Money.ofCents(getExpenditureInCentsByPricesFromCart()).toDouble();
+    }
+
+    public long getExpenditureInCentsByPricesFromCart(){
+        long expenditureBasket_ = 0;
         for(Ticket ticket : this.cart){
 
-            expenditureBasket_ += ticket.getStdPrice();
+            expenditureBasket_ += ticket.getStdPriceInCents();
         }
         return expenditureBasket_;
     }
@@ -1,5 +1,6 @@
 package de.bord.festival.models;
 
+import de.bord.festival.eventManagement.BandAvailabilityIndex;
 import de.bord.festival.eventManagement.IEvent;
 import de.bord.festival.exception.*;
 import de.bord.festival.ticket.Type;
@@ -14,6 +15,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.chrono.ChronoLocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,30 +42,45 @@ public class Event extends AbstractModel implements IEvent {
     @NotNull
     @Size(min = 2, max = 50, message = "Name should be between 2 and 50 characters")
     private String name;
-    @NotNull
-    @Min(value = 1, message = "Budget should be more than zero")
-    private BigDecimal budget;
-    private double actualCosts = 0;
+    private Money budget;
+    /**
+     * in cents
+     */
+    private long actualCosts;
     @OneToOne(cascade = CascadeType.ALL)
     private LineUp lineUp;
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    private List<Client> clients;
-
-    public void addClient(Client client) {
-        this.clients.add(client);
-    }
+    /**
+     * the buyers are kept in their own table (see BuyerIndex), the number is only counted up by the database
+     */
+    @Column(updatable = false)
+    private int numberOfBuyers;
+    /**
+     * plays of the bands in all events, the plays in other events are not checked, if it is not set
+     */
+    @Transient
+    private BandAvailabilityIndex bandAvailabilityIndex;
 
     public void setName(String name) {
         this.name = name;
     }
 
+    /**
+     * Bands are added only at times, at which they do not play in another event,
+     * and the index is told about every added and removed play
+     *
+     * @param bandAvailabilityIndex
+     */
+    public void setBandAvailabilityIndex(BandAvailabilityIndex bandAvailabilityIndex) {
+        this.bandAvailabilityIndex = bandAvailabilityIndex;
+    }
+
     public void setBudget(BigDecimal budget) {
-        this.budget = budget;
+        this.budget = budget == null ? null : Money.of(budget);
     }
 
 
     public double getActualCosts() {
-        return actualCosts;
+        return Money.ofCents(actualCosts).toDouble();
     }
 
 
@@ -78,8 +97,7 @@ public class Event extends AbstractModel implements IEvent {
                   TicketManager ticketManager, Address address) {
 
         lineUp = new LineUp(startTime, endTime, breakBetweenTwoBandsInMinute, startDate, endDate, stage, this);
-        clients = new LinkedList<>();
-        this.budget = budget;
+        this.budget = Money.of(budget);
         this.name = name;
         this.ticketManager = ticketManager;
         this.address = address;
@@ -107,6 +125,27 @@ public class Event extends AbstractModel implements IEvent {
 
     }
 
+    /**
+     * Creates a copy of the event to try changes of the line-up, the copy is not saved
+     * The programs of the days are copied, when the copy changes them (see LineUp.getProgram),
+     * so this event is never changed by the copy. The bands are copied,
+     * the ticket manager and the address are shared and should not be changed.
+     * The plays of the bands in other events are not checked in the copy.
+     *
+     * @return copy of the event
+     */
+    public Event fork() {
+        Event fork = new Event();
+        fork.name = name;
+        fork.budget = budget;
+        fork.actualCosts = actualCosts;
+        fork.ticketManager = ticketManager;
+        fork.address = address;
+        fork.numberOfBuyers = numberOfBuyers;
+        fork.lineUp = lineUp.fork(fork);
+        return fork;
+    }
+
 
     /**
      * detects if the price of band is affordable for the event budget
@@ -118,7 +157,7 @@ public class Event extends AbstractModel implements IEvent {
         if (containsBand(band)) {
             return true;
         }
-        return actualCosts + band.getPricePerEvent() <= budget.doubleValue();
+        return actualCosts + band.getPricePerEventInCents() <= budget.getCents();
     }
 
     /**
@@ -148,15 +187,16 @@ public class Event extends AbstractModel implements IEvent {
      * @return the information, which is relevant for band: stage, date, time, if the timeSlot is found,
      * otherwise null
      * @throws BudgetOverflowException,      if the band is to expensive
-     * @throws TimeSlotCantBeFoundException, if the band plays on another stage at the same time
+     * @throws TimeSlotCantBeFoundException, if no day has a free time for the band, times at which the band
+     *                                       plays on another stage or in another event are skipped
      */
     public EventInfo addBand(Band band) throws BudgetOverflowException, TimeSlotCantBeFoundException {
         if (!isNewBandAffordable(band)) {
             throw new BudgetOverflowException("The budget is not enough for this band");
         }
-        EventInfo eventInfo = lineUp.addBand(band);
+        EventInfo eventInfo = lineUp.addBand(band, bandAvailabilityIndex);
         if (eventInfo != null) {
-            band.addEventInfo(eventInfo);
+            addEventInfo(band, eventInfo);
             return eventInfo;
 
         } else {
@@ -165,6 +205,58 @@ public class Event extends AbstractModel implements IEvent {
 
     }
 
+    /**
+     * Adds all bands in one pass
+     * The longest bands are added first, so the short bands fill the gaps at the end of the days
+     * and the stages stay idle as short as possible. Every band gets the earliest free time slot.
+     * A band, which is not affordable or does not find a time slot, is left out.
+     *
+     * @param bands bands, which should be added
+     * @return bands, which are not added
+     */
+    public List<Band> addBands(List<Band> bands) {
+        List<Band> sortedBands = new ArrayList<>(bands);
+        sortedBands.sort(Comparator.comparingLong(Band::getMinutesOnStage).reversed());
+        List<Band> notAddedBands = new LinkedList<>();
+        for (Band band : sortedBands) {
+            EventInfo eventInfo = null;
+            if (isNewBandAffordable(band)) {
+                try {
+                    eventInfo = lineUp.addBand(band, bandAvailabilityIndex);
+                } catch (TimeSlotCantBeFoundException e) {
+                    //the band is left out
+                }
+            }
+            if (eventInfo != null) {
+                addEventInfo(band, eventInfo);
+            } else {
+                notAddedBands.add(band);
+            }
+        }
+        return notAddedBands;
+    }
+
+    /**
+     * The event info is added to the band of the event, which is the given band, if it is new
+     */
+    private void addEventInfo(Band band, EventInfo eventInfo) {
+        getBand(band).addEventInfo(eventInfo);
+        if (bandAvailabilityIndex != null) {
+            bandAvailabilityIndex.book(band.getName(), LocalDateTime.of(eventInfo.getDate(), eventInfo.getTime()),
+                    eventInfo.getMinutesOnStage());
+        }
+    }
+
+    /**
+     * Closes the gaps of removed bands: the bands on every stage and day play as early as possible,
+     * the order of the bands on a stage stays the same
+     *
+     * @return minutes, which are free at the end of the stages after the compaction and were used before
+     */
+    public long compactLineUp() {
+        return lineUp.compact(bandAvailabilityIndex);
+    }
+
     /**
      * Removes the band from entire event: from all programs and timeslots
      *
@@ -173,7 +265,12 @@ public class Event extends AbstractModel implements IEvent {
      */
     public boolean removeBand(Band band) {
         if (lineUp.removeBand(band)) {
-            actualCosts -= band.getPricePerEvent();
+            actualCosts = Money.plusCents(actualCosts, -band.getPricePerEventInCents());
+            if (bandAvailabilityIndex != null) {
+                for (EventInfo eventInfo : band.getEventInfos()) {
+                    bandAvailabilityIndex.release(band.getName(), LocalDateTime.of(eventInfo.getDate(), eventInfo.getTime()));
+                }
+            }
             band.removeEventInfo();
             return true;
         }
@@ -191,9 +288,12 @@ public class Event extends AbstractModel implements IEvent {
 
         if (this.lineUp.removeBand(band, dateAndTime)) {
             band.removeEventInfo(dateAndTime);
+            if (bandAvailabilityIndex != null) {
+                bandAvailabilityIndex.release(band.getName(), dateAndTime);
+            }
             //if band does not play on event anymore
             if (playsBandOnEvent(band)) {
-                actualCosts -= band.getPricePerEvent();
+                actualCosts = Money.plusCents(actualCosts, -band.getPricePerEventInCents());
             }
             return true;
         }
@@ -208,10 +308,10 @@ public class Event extends AbstractModel implements IEvent {
      * Adds to the actual costs variable
      * called by Lineup when a new band is added to the event
      *
-     * @param amount
+     * @param amountInCents
      */
-    public void addToTheActualCosts(double amount) {
-        actualCosts += amount;
+    public void addToTheActualCosts(long amountInCents) {
+        actualCosts = Money.plusCents(actualCosts, amountInCents);
     }
 
     public boolean containsBand(Band band) {
@@ -307,6 +407,9 @@ public class Event extends AbstractModel implements IEvent {
     }
 
     /**
+     * Changes only this instance, the price level of a saved event is changed with TicketManagerLanes,
+     * so it is saved and taken by the TicketManager, which sells the tickets
+     *
      * @param isPriceLevelChangeAutomatic true for automatic, false for manually price level change
      */
     public void setAutomaticPriceLevelChange(boolean isPriceLevelChangeAutomatic) {
@@ -322,6 +425,13 @@ public class Event extends AbstractModel implements IEvent {
         return ticketManager.getAutomaticPriceLevelChange();
     }
 
+    /**
+     * Changes only this instance, the price level of a saved event is changed with TicketManagerLanes,
+     * so it is saved and taken by the TicketManager, which sells the tickets
+     *
+     * @param index
+     * @return whether the change was successful
+     */
     public boolean setPriceLevel(int index) throws PriceLevelNotAvailableException {
         return ticketManager.setPriceLevel(index);
     }
@@ -339,8 +449,10 @@ public class Event extends AbstractModel implements IEvent {
     }
 
 
+    @NotNull
+    @Min(value = 1, message = "Budget should be more than zero")
     public BigDecimal getBudget() {
-        return budget;
+        return budget == null ? null : budget.toBigDecimal();
     }
 
     public LocalTime getStartTime() {
@@ -379,6 +491,10 @@ public class Event extends AbstractModel implements IEvent {
         return this.lineUp.getDayPrograms();
     }
 
+    public Collection<Program> getProgramsOfDaysWithBands() {
+        return this.lineUp.getProgramsOfDaysWithBands();
+    }
+
     public List<Stage> getStages() {
         return this.lineUp.getStages();
     }
@@ -409,7 +525,10 @@ public class Event extends AbstractModel implements IEvent {
 
 
 
-    public List<Client> getClients() {
-        return clients;
+    /**
+     * @return number of clients, who bought tickets of this event, as it was loaded
+     */
+    public int getNumberOfBuyers() {
+        return numberOfBuyers;
     }
 }
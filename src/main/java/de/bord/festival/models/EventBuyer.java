@@ -0,0 +1,37 @@
+package de.bord.festival.models;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * A client, who bought tickets of an event, the client is added only once
+ * <p>
+ * The unique index of event and client finds the client without loading the buyers of the event.
+ */
+@Entity
+@Immutable
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"eventId", "clientId"}))
+public class EventBuyer extends AbstractModel {
+
+    private long eventId;
+    private long clientId;
+
+    public EventBuyer() {
+    }
+
+    public EventBuyer(long eventId, long clientId) {
+        this.eventId = eventId;
+        this.clientId = clientId;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public long getClientId() {
+        return clientId;
+    }
+}
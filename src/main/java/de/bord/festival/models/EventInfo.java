@@ -1,20 +1,25 @@
 package de.bord.festival.models;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 /**
- * Contains information, that should be saved in Band-class: date, time, stage
+ * Contains information, that should be saved in Band-class: date, time, stage and minutes on stage
+ * The plays are read by date, when the BandAvailabilityIndex is loaded.
  */
 @Entity
+@Table(indexes = @Index(columnList = "date"))
 public class EventInfo extends AbstractModel {
     private LocalDate date;
     private LocalTime time;
     @OneToOne
     private Stage stage;
+    private long minutesOnStage;
 
 
     public EventInfo() {}
@@ -32,6 +37,16 @@ public class EventInfo extends AbstractModel {
 
     }
 
+    /**
+     * @param time
+     * @param stage
+     * @param minutesOnStage minutes the band plays
+     */
+    public EventInfo(LocalTime time, Stage stage, long minutesOnStage) {
+        this(time, stage);
+        this.minutesOnStage = minutesOnStage;
+    }
+
     public void setDate(LocalDate date) {
         this.date = date;
     }
@@ -52,5 +67,18 @@ public class EventInfo extends AbstractModel {
         return this.stage;
     }
 
+    public long getMinutesOnStage() {
+        return minutesOnStage;
+    }
+
+    /**
+     * @return copy of this event info, which is not saved
+     */
+    EventInfo copy() {
+        EventInfo copy = new EventInfo(time, stage, minutesOnStage);
+        copy.setDate(date);
+        return copy;
+    }
+
 
 }
@@ -0,0 +1,172 @@
+package de.bord.festival.models;
+
+/**
+ * Help class of TimeSlotList, should not be used outside of package
+ * Index of the free minutes of one stage on one day
+ * <p>
+ * The minutes are counted from the start time of the lineUp. A time slot occupies its minutes on stage
+ * and the break after it, so a new band fits into a free run of (minutes on stage + break) minutes.
+ * The index covers the day plus one break, so the last band can play until the end time.
+ * <p>
+ * It is a segment tree over the minutes, every node knows the longest free run at its start,
+ * at its end and inside of it. So the earliest free run of a given length is found
+ * and a time slot is added or removed in O(log n) of the minutes of the day.
+ */
+class FreeTimeIndex {
+
+    private static final byte NOTHING = 0;
+    private static final byte FREE = 1;
+    private static final byte OCCUPIED = 2;
+
+    private final int numberOfMinutes;
+    private final int size;
+    private final int[] freeAtStart;
+    private final int[] freeAtEnd;
+    private final int[] longestFree;
+    private final byte[] pending;
+
+    /**
+     * state of a running search: free minutes directly before the actual node
+     */
+    private int freeBefore;
+
+    /**
+     * @param numberOfMinutes minutes of the day plus one break, all free
+     */
+    FreeTimeIndex(int numberOfMinutes) {
+        this.numberOfMinutes = numberOfMinutes;
+        int leaves = 1;
+        while (leaves < numberOfMinutes) {
+            leaves *= 2;
+        }
+        this.size = leaves;
+        this.freeAtStart = new int[2 * leaves];
+        this.freeAtEnd = new int[2 * leaves];
+        this.longestFree = new int[2 * leaves];
+        this.pending = new byte[2 * leaves];
+        build(1, 0, size);
+    }
+
+    int getNumberOfMinutes() {
+        return numberOfMinutes;
+    }
+
+    /**
+     * @param from  first minute
+     * @param until minute after the last minute
+     */
+    void occupy(int from, int until) {
+        assign(from, until, OCCUPIED);
+    }
+
+    /**
+     * @param from  first minute
+     * @param until minute after the last minute
+     */
+    void free(int from, int until) {
+        assign(from, until, FREE);
+    }
+
+    /**
+     * Finds the earliest free run
+     *
+     * @param length number of free minutes, which are needed
+     * @param from   the run starts at this minute or later
+     * @return first minute of the earliest free run, -1 if there is none
+     */
+    int findFirstFreeRun(int length, int from) {
+        if (length <= 0 || from < 0 || longestFree[1] < length) {
+            return -1;
+        }
+        freeBefore = 0;
+        return find(1, 0, size, length, from);
+    }
+
+    private void build(int node, int left, int right) {
+        if (right - left == 1) {
+            int free = left < numberOfMinutes ? 1 : 0;
+            freeAtStart[node] = free;
+            freeAtEnd[node] = free;
+            longestFree[node] = free;
+            return;
+        }
+        int middle = (left + right) / 2;
+        build(2 * node, left, middle);
+        build(2 * node + 1, middle, right);
+        combine(node, left, right);
+    }
+
+    private void assign(int from, int until, byte state) {
+        from = Math.max(0, from);
+        until = Math.min(numberOfMinutes, until);
+        if (from < until) {
+            assign(1, 0, size, from, until, state);
+        }
+    }
+
+    private void assign(int node, int left, int right, int from, int until, byte state) {
+        if (until <= left || right <= from) {
+            return;
+        }
+        if (from <= left && right <= until) {
+            apply(node, right - left, state);
+            return;
+        }
+        pushDown(node, left, right);
+        int middle = (left + right) / 2;
+        assign(2 * node, left, middle, from, until, state);
+        assign(2 * node + 1, middle, right, from, until, state);
+        combine(node, left, right);
+    }
+
+    private int find(int node, int left, int right, int length, int from) {
+        if (right <= from) {
+            return -1;
+        }
+        if (left >= from) {
+            if (freeBefore + freeAtStart[node] >= length) {
+                return left - freeBefore;
+            }
+            if (longestFree[node] < length) {
+                freeBefore = freeAtStart[node] == right - left ? freeBefore + right - left : freeAtEnd[node];
+                return -1;
+            }
+        }
+        pushDown(node, left, right);
+        int middle = (left + right) / 2;
+        int start = find(2 * node, left, middle, length, from);
+        if (start != -1) {
+            return start;
+        }
+        return find(2 * node + 1, middle, right, length, from);
+    }
+
+    private void apply(int node, int length, byte state) {
+        int free = state == FREE ? length : 0;
+        freeAtStart[node] = free;
+        freeAtEnd[node] = free;
+        longestFree[node] = free;
+        pending[node] = state;
+    }
+
+    private void pushDown(int node, int left, int right) {
+        if (pending[node] != NOTHING) {
+            int half = (right - left) / 2;
+            apply(2 * node, half, pending[node]);
+            apply(2 * node + 1, half, pending[node]);
+            pending[node] = NOTHING;
+        }
+    }
+
+    private void combine(int node, int left, int right) {
+        int half = (right - left) / 2;
+        int leftChild = 2 * node;
+        int rightChild = 2 * node + 1;
+        freeAtStart[node] = freeAtStart[leftChild] == half
+                ? half + freeAtStart[rightChild] : freeAtStart[leftChild];
+        freeAtEnd[node] = freeAtEnd[rightChild] == half
+                ? half + freeAtEnd[leftChild] : freeAtEnd[rightChild];
+        longestFree[node] = Math.max(Math.max(longestFree[leftChild], longestFree[rightChild]),
+                freeAtEnd[leftChild] + freeAtStart[rightChild]);
+    }
+}
@@ -1,6 +1,8 @@
 package de.bord.festival.models;
 
+import de.bord.festival.eventManagement.BandAvailabilityIndex;
 import de.bord.festival.exception.TimeSlotCantBeFoundException;
+import org.hibernate.annotations.SortNatural;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -8,7 +10,6 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.Period;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
@@ -16,16 +17,40 @@ import java.util.*;
 /**
  * Is a class, which contains all important features: start and end date, times, minutes of breaks
  * between plays, all the stages, and bands and bands and required programs
+ * <p>
+ * The program of a day is created, when the first band is added on this day,
+ * so only days with bands are kept and saved.
  */
 @Entity
+@Table(indexes = @Index(columnList = "startDate"))
 public class LineUp extends AbstractModel {
     @OneToMany(cascade = CascadeType.ALL)
-    @OrderBy("id")
-    private Map<LocalDate, Program> dayPrograms;
+    @SortNatural
+    private SortedMap<LocalDate, Program> dayPrograms;
     @OneToMany(cascade = CascadeType.ALL)
     private List<Stage> stages;
+    /**
+     * the stages by their name, it is built from the stages when it is needed first
+     */
+    @Transient
+    private Map<String, Stage> stagesByName;
+    /**
+     * programs, which are shared with the line-up, from which this line-up is copied
+     */
+    @Transient
+    private Set<Program> sharedPrograms;
+    /**
+     * empty program with all stages, which all days without bands share, it is built when it is needed first
+     */
+    @Transient
+    private Program emptyProgram;
     @OneToMany(cascade = CascadeType.ALL)
     private List<Band> bands;
+    /**
+     * the bands by their name, it is built from the bands when it is needed first
+     */
+    @Transient
+    private Map<String, Band> bandsByName;
     @OneToOne(cascade = CascadeType.ALL)
     private Event event;
     @NotNull
@@ -53,13 +78,12 @@ public class LineUp extends AbstractModel {
     }
 
     public LineUp(LocalTime startTime, LocalTime endTime, long breakBetweenTwoBandsInMinute, LocalDate startDate, LocalDate endDate, Stage stage, Event event) {
-        dayPrograms = new LinkedHashMap<>();
+        dayPrograms = new TreeMap<>();
         stages = new LinkedList<>();
         stages.add(stage);//minimum one stage should exist
         bands = new LinkedList<>();
         this.startDate = startDate;
         this.endDate = endDate;
-        createProgramsBetweenStartAndEndDates();
         this.event = event;
         this.startTime = startTime;
         this.endTime = endTime;
@@ -68,31 +92,81 @@ public class LineUp extends AbstractModel {
     }
 
     /**
-     * creates programs for each day of event and saves it to the collection
+     * A copy of a line-up shares the programs with the original line-up, the program of a day
+     * is copied, when the copy uses it first (copy on write). The original line-up is never changed by its copies.
+     *
+     * @return program of the day, which belongs to this line-up, null if the day has no program
      */
-    private void createProgramsBetweenStartAndEndDates() {
-        if (startDate.equals(endDate)) {
-            createProgramForOneDay();
-        } else {
-            createProgramForMoreDays();
+    private Program getProgram(LocalDate date) {
+        Program program = dayPrograms.get(date);
+        if (program != null && sharedPrograms != null && sharedPrograms.remove(program)) {
+            program = program.copy(this);
+            dayPrograms.put(date, program);
         }
+        return program;
+    }
 
+    /**
+     * Creates a copy of this line-up for the given copy of the event, see getProgram(LocalDate)
+     * The bands are copied, the programs are shared until they are used.
+     *
+     * @param event copy of the event
+     * @return copy of this line-up, which is not saved
+     */
+    LineUp fork(Event event) {
+        LineUp fork = new LineUp();
+        fork.event = event;
+        fork.startDate = startDate;
+        fork.endDate = endDate;
+        fork.startTime = startTime;
+        fork.endTime = endTime;
+        fork.breakBetweenTwoBandsInMinutes = breakBetweenTwoBandsInMinutes;
+        fork.stages = new LinkedList<>(stages);
+        fork.bands = new LinkedList<>();
+        for (Band band : bands) {
+            fork.bands.add(band.copy());
+        }
+        fork.dayPrograms = new TreeMap<>(dayPrograms);
+        fork.sharedPrograms = Collections.newSetFromMap(new IdentityHashMap<>());
+        fork.sharedPrograms.addAll(dayPrograms.values());
+        return fork;
     }
 
-    private void createProgramForOneDay() {
-        createProgramPutIntoMapWithDays(startDate);
+    /**
+     * Moves the bands on every stage and day as early as possible, see Program.compact
+     *
+     * @param bandAvailabilityIndex plays of the bands in all events, null if they are not checked
+     * @return minutes, which are free at the end of the stages after the compaction and were used before
+     */
+    public long compact(BandAvailabilityIndex bandAvailabilityIndex) {
+        long recoveredMinutes = 0;
+        for (LocalDate date : dayPrograms.keySet()) {
+            recoveredMinutes += getProgram(date).compact(date, bandAvailabilityIndex);
+        }
+        return recoveredMinutes;
     }
 
-    private void createProgramForMoreDays() {
-        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
-            createProgramPutIntoMapWithDays(date);
+    /**
+     * @return part of the time of all days, in which bands play on the stage (0 to 1) by name of the stage
+     */
+    public Map<String, Double> getStageUtilisation() {
+        double minutesOfAllDays = getNumberOfDays() * (double) startTime.until(endTime, ChronoUnit.MINUTES);
+        Map<String, Double> stageUtilisation = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            long minutesOnStage = 0;
+            for (Program program : dayPrograms.values()) {
+                minutesOnStage += program.getMinutesOfBandsOnStage(stage);
+            }
+            stageUtilisation.put(stage.getStageName(), minutesOfAllDays > 0 ? minutesOnStage / minutesOfAllDays : 0);
         }
-        createProgramPutIntoMapWithDays(endDate);
+        return stageUtilisation;
     }
 
-    private void createProgramPutIntoMapWithDays(LocalDate date) {
-        Program program = new Program(stages.get(0), this);
-        dayPrograms.put(date, program);
+    /**
+     * creates an empty program with all stages, it is not added to the days
+     */
+    private Program createProgram() {
+        return new Program(stages, this);
     }
 
     /**
@@ -106,10 +180,12 @@ public class LineUp extends AbstractModel {
         if (findStage(stage.getStageName()) != null) {
             return false;
         }
-        for (Map.Entry<LocalDate, Program> entry : dayPrograms.entrySet()) {
-            entry.getValue().addStage(stage);
+        for (LocalDate date : dayPrograms.keySet()) {
+            getProgram(date).addStage(stage);
         }
         stages.add(stage);
+        getStagesByName().put(stage.getStageName(), stage);
+        emptyProgram = null;
         return true;
     }
 
@@ -120,24 +196,52 @@ public class LineUp extends AbstractModel {
      * @param band object, which should be added
      * @return the information, which is relevant for band: stage, date, time, if the timeSlot is found,
      * otherwise null
-     * @throws TimeSlotCantBeFoundException, if the band plays on another stage at the same time
+     * @throws TimeSlotCantBeFoundException is not thrown any more, a time at which the band plays on another stage
+     *                                      (or in another event) is skipped and the next free time is tried,
+     *                                      null is returned, if no day has free time left. Event.addBand throws it then.
      */
     public EventInfo addBand(Band band) throws TimeSlotCantBeFoundException {
+        return addBand(band, null);
+    }
 
-        for (Map.Entry<LocalDate, Program> entry : dayPrograms.entrySet()) {
-            Program programOnCurrentDate = entry.getValue();
-            LocalDate currentDate = entry.getKey();
-            //to work with the same object we take existing band from event list
-            EventInfo timeSlotWithStage;
-            if (event.containsBand(band)) {
-                Band oldBand=event.getBand(band);
-                oldBand.setMinutesOnStage(band.getMinutesOnStage());
-                timeSlotWithStage = programOnCurrentDate.addBand(oldBand);
-            } else {
-                timeSlotWithStage = programOnCurrentDate.addBand(band);
+    /**
+     * Adds band to the event, the band does not play at the same time in another event
+     *
+     * @param band                  object, which should be added
+     * @param bandAvailabilityIndex plays of the band in all events, null if they are not checked
+     * @return the information, which is relevant for band: stage, date, time, if the timeSlot is found,
+     * otherwise null
+     * @throws TimeSlotCantBeFoundException is not thrown any more, a time at which the band plays on another stage
+     *                                      (or in another event) is skipped and the next free time is tried,
+     *                                      null is returned, if no day has free time left. Event.addBand throws it then.
+     */
+    public EventInfo addBand(Band band, BandAvailabilityIndex bandAvailabilityIndex) throws TimeSlotCantBeFoundException {
+        //to work with the same object we take existing band from event list
+        Band bandToAdd = band;
+        Band oldBand = getBand(band);
+        if (oldBand != null) {
+            oldBand.setMinutesOnStage(band.getMinutesOnStage());
+            bandToAdd = oldBand;
+        }
+        //all days without program are the same, if the plays in other events are not checked,
+        //so only the first of them is tried
+        boolean isDayWithoutProgramTried = false;
+        for (LocalDate currentDate = startDate; !currentDate.isAfter(endDate); currentDate = currentDate.plusDays(1)) {
+            Program programOnCurrentDate = getProgram(currentDate);
+            boolean isNewProgram = programOnCurrentDate == null;
+            if (isNewProgram) {
+                if (isDayWithoutProgramTried && bandAvailabilityIndex == null) {
+                    continue;
+                }
+                isDayWithoutProgramTried = true;
+                programOnCurrentDate = createProgram();
             }
+            EventInfo timeSlotWithStage = programOnCurrentDate.addBand(bandToAdd, currentDate, bandAvailabilityIndex);
 
             if (timeSlotWithStage != null) {
+                if (isNewProgram) {
+                    dayPrograms.put(currentDate, programOnCurrentDate);
+                }
                 return actionIfTimeSlotFound(band, timeSlotWithStage, currentDate);
             }
         }
@@ -157,8 +261,9 @@ public class LineUp extends AbstractModel {
     private EventInfo actionIfTimeSlotFound(Band band, EventInfo timeSlotWithStage, LocalDate currentDate) {
         if (!containsBand(band)) {
             bands.add(band);
+            getBandsByName().put(band.getName(), band);
             //the price for event should be changed only if the band is new
-            this.event.addToTheActualCosts(band.getPricePerEvent());
+            this.event.addToTheActualCosts(band.getPricePerEventInCents());
         }
         timeSlotWithStage.setDate(currentDate);
         return timeSlotWithStage;
@@ -186,8 +291,7 @@ public class LineUp extends AbstractModel {
 
     public int getNumberOfDays() {
 
-        Period diff = Period.between(startDate, endDate);
-        return diff.getDays() + 1;
+        return (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
     }
 
     public Stage getFirstStage() {
@@ -212,12 +316,14 @@ public class LineUp extends AbstractModel {
         //if the stage exists and is free, than we can remove it
         removeStageFromAllPrograms(stageName);
         stages.remove(foundStage);
+        getStagesByName().remove(stageName);
+        emptyProgram = null;
         return true;
     }
 
     private void removeStageFromAllPrograms(String stageName) {
-        for (Map.Entry<LocalDate, Program> entry : dayPrograms.entrySet()) {
-            entry.getValue().removeStage(stageName);
+        for (LocalDate date : dayPrograms.keySet()) {
+            getProgram(date).removeStage(stageName);
         }
     }
 
@@ -227,8 +333,8 @@ public class LineUp extends AbstractModel {
 
     private boolean isStageInAllProgramsEmpty(String stageName) {
 
-        for (Map.Entry<LocalDate, Program> entry : dayPrograms.entrySet()) {
-            if (entry.getValue().existOnStageTimeSlots(stageName)) {
+        for (LocalDate date : dayPrograms.keySet()) {
+            if (getProgram(date).existOnStageTimeSlots(stageName)) {
                 return false;
             }
         }
@@ -236,17 +342,22 @@ public class LineUp extends AbstractModel {
     }
 
     /**
-     * Looks for a stage with given id
+     * Looks for a stage with given name
      *
      * @return if stage exists in event: Stage, otherwise: null
      */
     public Stage findStage(String stageName) {
-        for (int i = 0; i < stages.size(); i++) {
-            if (stages.get(i).getStageName().equals(stageName)) {
-                return stages.get(i);
+        return getStagesByName().get(stageName);
+    }
+
+    private Map<String, Stage> getStagesByName() {
+        if (stagesByName == null) {
+            stagesByName = new HashMap<>();
+            for (Stage stage : stages) {
+                stagesByName.put(stage.getStageName(), stage);
             }
         }
-        return null;
+        return stagesByName;
     }
 
     /**
@@ -257,18 +368,18 @@ public class LineUp extends AbstractModel {
      */
     public boolean removeBand(Band band) {
 
-        boolean doesBandExistsInEventList = bands.remove(band);
-        if (!doesBandExistsInEventList) {
+        Band removedBand = getBandsByName().remove(band.getName());
+        if (removedBand == null) {
             return false;
         }
+        bands.remove(removedBand);
         removeBandFromAllPrograms(band);
         return true;
     }
 
     private void removeBandFromAllPrograms(Band band) {
-        for (Map.Entry<LocalDate, Program> entry : dayPrograms.entrySet()) {
-            Program currentProgram = entry.getValue();
-            currentProgram.removeBand(band);
+        for (LocalDate date : dayPrograms.keySet()) {
+            getProgram(date).removeBand(band);
         }
     }
 
@@ -288,7 +399,7 @@ public class LineUp extends AbstractModel {
         LocalDate date = dateAndTime.toLocalDate();
 
         //find program the date should be removed
-        Program program = dayPrograms.get(date);
+        Program program = getProgram(date);
         if (program == null) {
             return false;
         }
@@ -297,6 +408,7 @@ public class LineUp extends AbstractModel {
         if (program.removeBand(band, time)) {
             if (isBandLast(band)) {
                 bands.remove(band);
+                getBandsByName().remove(band.getName());
             }
             return true;
         }
@@ -314,31 +426,110 @@ public class LineUp extends AbstractModel {
      * @return if band is already subscribed to a timeslot: true, otherwise: false
      */
     public boolean containsBand(Band band) {
-        boolean check = false;
-        for (Band value : bands) {
-            if (value.equals(band)) {
-                check = true;
-                break;
-            }
-        }
-        return check;
+        return getBandsByName().containsKey(band.getName());
     }
+
+    /**
+     * @param band
+     * @return the band of the event with the same name, null if there is none
+     */
     public Band getBand(Band band) {
-        boolean check = false;
-        for (Band value : bands) {
-            if (value.equals(band)) {
-                return value;
+        return getBandsByName().get(band.getName());
+    }
+
+    private Map<String, Band> getBandsByName() {
+        if (bandsByName == null) {
+            bandsByName = new HashMap<>();
+            for (Band value : bands) {
+                bandsByName.put(value.getName(), value);
             }
         }
-        return null;
+        return bandsByName;
     }
 
     public List<Band> getBands() {
         return this.bands;
     }
 
+    /**
+     * @return read-only view of the programs of all days sorted by date, the days without bands
+     * share one empty program, which is not saved and must not be changed
+     */
     public Map<LocalDate, Program> getDayPrograms() {
-        return this.dayPrograms;
+        return new AllDayPrograms();
+    }
+
+    /**
+     * @return read-only programs of the days with bands sorted by date
+     */
+    public Collection<Program> getProgramsOfDaysWithBands() {
+        return Collections.unmodifiableCollection(dayPrograms.values());
+    }
+
+    private Program getEmptyProgram() {
+        if (emptyProgram == null) {
+            emptyProgram = createProgram();
+        }
+        return emptyProgram;
+    }
+
+    /**
+     * programs of all days from the start date to the end date, it reads the programs of the days with bands,
+     * so nothing is copied
+     */
+    private class AllDayPrograms extends AbstractMap<LocalDate, Program> {
+
+        @Override
+        public Program get(Object date) {
+            if (!containsKey(date)) {
+                return null;
+            }
+            Program program = dayPrograms.get(date);
+            return program != null ? program : getEmptyProgram();
+        }
+
+        @Override
+        public boolean containsKey(Object date) {
+            return date instanceof LocalDate
+                    && !((LocalDate) date).isBefore(startDate) && !((LocalDate) date).isAfter(endDate);
+        }
+
+        @Override
+        public int size() {
+            return getNumberOfDays();
+        }
+
+        @Override
+        public Set<Entry<LocalDate, Program>> entrySet() {
+            return new AbstractSet<Entry<LocalDate, Program>>() {
+                @Override
+                public Iterator<Entry<LocalDate, Program>> iterator() {
+                    return new Iterator<Entry<LocalDate, Program>>() {
+                        private LocalDate date = startDate;
+
+                        @Override
+                        public boolean hasNext() {
+                            return !date.isAfter(endDate);
+                        }
+
+                        @Override
+                        public Entry<LocalDate, Program> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<LocalDate, Program> dayProgram = new SimpleImmutableEntry<>(date, get(date));
+                            date = date.plusDays(1);
+                            return dayProgram;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return getNumberOfDays();
+                }
+            };
+        }
     }
 
     public List<Stage> getStages() {
@@ -0,0 +1,49 @@
+package de.bord.festival.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Converts times to minutes and back
+ * <p>
+ * The search for time slots works with int minutes of the day and long minutes since 1970-01-01,
+ * so it does not create objects. LocalTime and LocalDateTime are only created for the results.
+ */
+public final class Minutes {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private Minutes() {
+    }
+
+    /**
+     * @return minute of the day, seconds are ignored
+     */
+    public static int ofDay(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+
+    public static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.ofSecondOfDay(minuteOfDay * 60L);
+    }
+
+    /**
+     * @return minutes since 1970-01-01 00:00
+     */
+    public static long ofEpoch(LocalDate date, int minuteOfDay) {
+        return date.toEpochDay() * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    /**
+     * @return minutes since 1970-01-01 00:00, seconds are ignored
+     */
+    public static long ofEpoch(LocalDateTime dateTime) {
+        return ofEpoch(dateTime.toLocalDate(), ofDay(dateTime.toLocalTime()));
+    }
+
+    public static LocalDateTime toLocalDateTime(long minuteOfEpoch) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(Math.floorDiv(minuteOfEpoch, MINUTES_PER_DAY)),
+                toLocalTime((int) Math.floorMod(minuteOfEpoch, MINUTES_PER_DAY)));
+    }
+}
@@ -0,0 +1,106 @@
+package de.bord.festival.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money in euro, kept exact as a number of cents
+ * <p>
+ * Prices, incomes, expenditures and budgets are stored as Money, so sums of many sales do not drift
+ * like sums of doubles. Code, which adds many amounts (e.g. the sale of a cart), adds the cents as long
+ * and creates one Money for the result. Running totals, which change with every sale
+ * (the income of a TicketManager, the expenditures of a client, the costs of an event),
+ * are kept as cents in a long with plusCents(long, long), so adding to them creates no object.
+ * It is stored as number of cents by the MoneyConverter.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * @param amount in euro, it is rounded to cents
+     * @return money of the amount
+     */
+    public static Money of(double amount) {
+        return ofCents(Math.round(amount * 100));
+    }
+
+    /**
+     * @param amount in euro, it is rounded to cents
+     * @return money of the amount
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * @throws ArithmeticException if the sum does not fit into a long
+     */
+    public Money plusCents(long cents) {
+        return ofCents(Math.addExact(this.cents, cents));
+    }
+
+    /**
+     * Adds cents to a running total without creating a Money
+     *
+     * @throws ArithmeticException if the sum does not fit into a long
+     */
+    public static long plusCents(long cents, long addedCents) {
+        return Math.addExact(cents, addedCents);
+    }
+
+    public Money plus(Money money) {
+        return plusCents(money.cents);
+    }
+
+    public Money minus(Money money) {
+        return plusCents(Math.negateExact(money.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, (long) quantity));
+    }
+
+    public double toDouble() {
+        return cents / 100.0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money money) {
+        return Long.compare(cents, money.cents);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Money && ((Money) object).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,21 @@
+package de.bord.festival.models;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores Money as number of cents
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.getCents();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long cents) {
+        return cents == null ? null : Money.ofCents(cents);
+    }
+}
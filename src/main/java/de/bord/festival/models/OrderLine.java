@@ -0,0 +1,64 @@
+package de.bord.festival.models;
+
+import de.bord.festival.ticket.Type;
+
+import javax.persistence.Entity;
+
+/**
+ * One line of an order: all tickets of one type,
+ * which were bought with the same description and price
+ * <p>
+ * The tickets of an order are stored as lines with a quantity
+ * instead of a row for every single ticket.
+ */
+@Entity
+public class OrderLine extends AbstractModel {
+
+    private Type ticketType;
+    private String description;
+    private Money unitPrice;
+    private int quantity;
+
+    public OrderLine() {
+    }
+
+    public OrderLine(Ticket ticket) {
+        this.ticketType = ticket.getTicketType();
+        this.description = ticket.getDescription();
+        this.unitPrice = Money.ofCents(ticket.getStdPriceInCents());
+    }
+
+    /**
+     * @param ticket
+     * @return true, if the ticket belongs to this line
+     */
+    public boolean isLineOf(Ticket ticket) {
+        return ticketType == ticket.getTicketType()
+                && unitPrice.getCents() == ticket.getStdPriceInCents()
+                && description.equals(ticket.getDescription());
+    }
+
+    public void addTicket() {
+        quantity++;
+    }
+
+    public Type getTicketType() {
+        return ticketType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice.toDouble();
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getTotalPrice() {
+        return unitPrice.times(quantity).toDouble();
+    }
+}
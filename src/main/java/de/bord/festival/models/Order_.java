@@ -3,60 +3,69 @@ package de.bord.festival.models;
 
 import de.bord.festival.ticket.Type;
 
-
 import javax.persistence.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import javax.persistence.*;
 
 @Entity
 @Table(name="orders")
 public class Order_ extends AbstractModel {
 
-
-
-    @OneToMany (cascade = CascadeType.ALL)
-    private List<Ticket> dayTickets;
-
-    @OneToMany (cascade = CascadeType.ALL)
-    private List<Ticket> campingTickets;
-
-    @OneToMany (cascade = CascadeType.ALL)
-    private List<Ticket> vipTickets;
+    /**
+     * the tickets of the order grouped by type, description and price
+     */
+    @OneToMany(cascade = CascadeType.ALL)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
+    private List<OrderLine> orderLines;
 
     public Order_(){}
 
     public Order_(List<Ticket> tickets){
-        this.dayTickets = new LinkedList<>();
-        this.campingTickets = new LinkedList<>();
-        this.vipTickets = new LinkedList<>();
-        setTicketList(tickets);
+        this.orderLines = new ArrayList<>(Type.values().length);
+        setOrderLines(tickets);
+    }
+
+    public List<OrderLine> getOrderLines() {
+        return orderLines;
     }
 
-    public List<Ticket> getDayTickets() {
-        return dayTickets;
+    /**
+     * @param type
+     * @return number of tickets of the given type in this order
+     */
+    public int getNumberOfTickets(Type type) {
+        int numberOfTickets = 0;
+        for (OrderLine orderLine : orderLines) {
+            if (orderLine.getTicketType() == type) {
+                numberOfTickets += orderLine.getQuantity();
+            }
+        }
+        return numberOfTickets;
     }
 
-    public List<Ticket> getCampingTickets() {
-        return campingTickets;
+    public int getNumberOfTickets() {
+        int numberOfTickets = 0;
+        for (OrderLine orderLine : orderLines) {
+            numberOfTickets += orderLine.getQuantity();
+        }
+        return numberOfTickets;
     }
 
-    public List<Ticket> getVipTickets() {
-        return vipTickets;
+    private void setOrderLines(List<Ticket> tickets){
+        for (Ticket ticket : tickets) {
+            getOrderLine(ticket).addTicket();
+        }
     }
 
-    private void setTicketList(List<Ticket> tickets){
-        for (Ticket ticket:tickets) {
-            if(ticket.getTicketType()== Type.DAY){
-                dayTickets.add((DayTicket)ticket);
-            }
-            else if((ticket.getTicketType()== Type.CAMPING)){
-                campingTickets.add((CampingTicket)ticket);
-            }
-            else if((ticket.getTicketType()== Type.VIP)){
-                vipTickets.add((VIPTicket)ticket);
+    private OrderLine getOrderLine(Ticket ticket) {
+        for (OrderLine orderLine : orderLines) {
+            if (orderLine.isLineOf(ticket)) {
+                return orderLine;
             }
         }
+        OrderLine orderLine = new OrderLine(ticket);
+        orderLines.add(orderLine);
+        return orderLine;
     }
 
 }
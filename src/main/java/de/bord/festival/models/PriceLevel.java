@@ -2,6 +2,10 @@ package de.bord.festival.models;
 
 import de.bord.festival.exception.PriceLevelException;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.validation.constraints.Min;
@@ -12,16 +16,12 @@ import javax.validation.constraints.NotNull;
  *  Contains for all tickets: prices for certain price levels and a percentage at which the next price level starts
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class PriceLevel extends AbstractModel implements Comparable<PriceLevel>{
-    @NotNull
-    @Min(1)
-    private double dayTicketPrice;
-    @NotNull
-    @Min(1)
-    private double campingTicketPrice;
-    @NotNull
-    @Min(1)
-    private double vipTicketPrice;
+    private Money dayTicketPrice = Money.ZERO;
+    private Money campingTicketPrice = Money.ZERO;
+    private Money vipTicketPrice = Money.ZERO;
     /**
      * the price level is valid until the percentage of sold tickets is exceeded
      */
@@ -39,9 +39,9 @@ public class PriceLevel extends AbstractModel implements Comparable<PriceLevel>{
             throw new PriceLevelException("PercentageForPricelevel not valid");
         }
         this.percentageForPriceLevel = PercentageForPriceLevel;
-        this.dayTicketPrice = dayTicketPrice;
-        this.campingTicketPrice = CampingTicketPrice;
-        this.vipTicketPrice = VipTicketPrice;
+        this.dayTicketPrice = Money.of(dayTicketPrice);
+        this.campingTicketPrice = Money.of(CampingTicketPrice);
+        this.vipTicketPrice = Money.of(VipTicketPrice);
 
     }
 
@@ -63,15 +63,19 @@ public class PriceLevel extends AbstractModel implements Comparable<PriceLevel>{
         return percentageForPriceLevel;
     }
 
-    public double getDayTicketPrice(){return dayTicketPrice;}
-    public double getCampingTicketPrice(){return campingTicketPrice;}
+    @NotNull
+    @Min(1)
+    public double getDayTicketPrice(){return dayTicketPrice.toDouble();}
+    @NotNull
+    @Min(1)
+    public double getCampingTicketPrice(){return campingTicketPrice.toDouble();}
 
     public void setCampingTicketPrice(double campingTicketPrice) {
-        this.campingTicketPrice = campingTicketPrice;
+        this.campingTicketPrice = Money.of(campingTicketPrice);
     }
 
     public void setVipTicketPrice(double vipTicketPrice) {
-        this.vipTicketPrice = vipTicketPrice;
+        this.vipTicketPrice = Money.of(vipTicketPrice);
     }
 
     public void setPercentageForPriceLevel(double percentageForPriceLevel) {
@@ -80,9 +84,11 @@ public class PriceLevel extends AbstractModel implements Comparable<PriceLevel>{
 
 
 
-    public double getVipTicketPrice(){return vipTicketPrice;}
+    @NotNull
+    @Min(1)
+    public double getVipTicketPrice(){return vipTicketPrice.toDouble();}
 
     public void setDayTicketPrice(double dayTicketPrice) {
-        this.dayTicketPrice = dayTicketPrice;
+        this.dayTicketPrice = Money.of(dayTicketPrice);
     }
 }
@@ -1,17 +1,17 @@
 package de.bord.festival.models;
 
+import de.bord.festival.eventManagement.BandAvailabilityIndex;
 import de.bord.festival.exception.TimeSlotCantBeFoundException;
-import org.springframework.security.core.parameters.P;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
 
-import static java.time.temporal.ChronoUnit.MINUTES;
-
 /**
  * Help class of LineUp, should not be used outside of package
  * Contains collection of timeSlots with corresponding stages
+ * The stages are kept in the order they were added and are found by their name.
  *
  * @author klass
  */
@@ -23,24 +23,60 @@ public class Program extends AbstractModel {
     private Map<Stage, TimeSlotList> programsForStages;
     @OneToOne(cascade = CascadeType.ALL)
     private LineUp lineUp;//to access the lineUp fields
+    /**
+     * time slots of every band on this day by name of the band, it is built when it is needed first
+     */
+    @Transient
+    private Map<String, List<TimeSlot>> timeSlotsOfBands;
+    /**
+     * the stages of this day by their name, it is built when it is needed first
+     */
+    @Transient
+    private Map<String, Stage> stagesByName;
 
 
     public Program(){
 
     }
     public Program(Stage stage, LineUp lineUp) {
+        this(Collections.singletonList(stage), lineUp);
+    }
+
+    public Program(List<Stage> stages, LineUp lineUp) {
         this.lineUp = lineUp;
-        programsForStages = new TreeMap<>((o1, o2) -> {
-            if (o1.getCreatedAt()!=null && o2.getCreatedAt()!=null){
-                return o1.getCreatedAt().compareTo(o2.getCreatedAt());
-            }
-            else{
-                return 1;
-            }
+        programsForStages = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            addStage(stage);
+        }
+    }
 
-        });
-        programsForStages.put(stage, new TimeSlotList());
+    /**
+     * @param lineUp the line-up of the copy
+     * @return copy of this program with copies of the time slot lists and time slots
+     */
+    Program copy(LineUp lineUp) {
+        Program copy = new Program();
+        copy.lineUp = lineUp;
+        copy.programsForStages = new LinkedHashMap<>();
+        for (Map.Entry<Stage, TimeSlotList> entry : programsForStages.entrySet()) {
+            copy.programsForStages.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
 
+    /**
+     * @return minutes, in which bands play on the stage on this day
+     */
+    long getMinutesOfBandsOnStage(Stage stage) {
+        TimeSlotList timeSlotList = programsForStages.get(stage);
+        if (timeSlotList == null) {
+            return 0;
+        }
+        long minutes = 0;
+        for (TimeSlot timeSlot : timeSlotList.getTimeSlots()) {
+            minutes += timeSlot.getMinutesOnStage();
+        }
+        return minutes;
     }
 
     /**
@@ -51,32 +87,48 @@ public class Program extends AbstractModel {
     public void addStage(Stage stage) {
 
         programsForStages.put(stage, new TimeSlotList());
+        getStagesByName().put(stage.getStageName(), stage);
     }
 
     /**
      * Adds band to the event, is a help method for LineUp class
+     * The band gets the earliest free time on the first stage, which has enough free time.
+     * Gaps of removed bands are used again. The band never plays on two stages at the same time.
      *
      * @param band           band that should be added
-     * @return an object EventInfo, which contains stage, and time
-     * @throws TimeSlotCantBeFoundException if the band plays on another stage at the same time
+     * @return an object EventInfo, which contains stage, and time, null if no free time is found
+     * @throws TimeSlotCantBeFoundException is not thrown any more, a time at which the band plays on another stage
+     *                                      (or in another event) is skipped and the search goes on after that play,
+     *                                      null is returned, if no free time is left. Event.addBand throws it then.
      */
     public EventInfo addBand(Band band) throws TimeSlotCantBeFoundException {
+        return addBand(band, null, null);
+    }
+
+    /**
+     * Adds band to the event, the band does not play at the same time in another event
+     *
+     * @param band                  band that should be added
+     * @param date                  date of this program
+     * @param bandAvailabilityIndex plays of the band in all events, null if they are not checked
+     * @return an object EventInfo, which contains stage, time and minutes on stage, null if no free time is found
+     * @throws TimeSlotCantBeFoundException is not thrown any more, a time at which the band plays on another stage
+     *                                      (or in another event) is skipped and the search goes on after that play,
+     *                                      null is returned, if no free time is left. Event.addBand throws it then.
+     */
+    public EventInfo addBand(Band band, LocalDate date, BandAvailabilityIndex bandAvailabilityIndex) throws TimeSlotCantBeFoundException {
         long minutesOnStage=band.getMinutesOnStage();
+        List<TimeSlot> timeSlotsOfBand = getTimeSlotsOfBand(band);
         /* searching timeSlot on stages */
         for (Map.Entry<Stage,TimeSlotList> entry : programsForStages.entrySet()) {
-            Stage currentStage = entry.getKey();
-            List<TimeSlot> currentListOfTimeSlots = entry.getValue().getTimeSlots();
-            //if there is no timeSlots on current stage
-            if (currentListOfTimeSlots.isEmpty()) {
-                return createEventInfoWithTimeSlotAtStart(currentListOfTimeSlots, band, currentStage, minutesOnStage);
-            }
-            //else look after the previous timeSlot
-            TimeSlot previousTimeSlot = currentListOfTimeSlots.get(currentListOfTimeSlots.size()-1);
-            LocalTime newTime = getNewTime(previousTimeSlot, minutesOnStage);
-            if (newTimeIsFound(newTime)) {
+            TimeSlotList currentTimeSlots = entry.getValue();
+            int minute = findFreeMinute(currentTimeSlots, band, timeSlotsOfBand, date, bandAvailabilityIndex);
+            if (minute != -1) {
+                LocalTime newTime = this.lineUp.getStartTime().plusMinutes(minute);
                 TimeSlot newTimeSlot = new TimeSlot(newTime, band, minutesOnStage);
-                currentListOfTimeSlots.add(newTimeSlot);
-                return new EventInfo(newTime, currentStage);
+                currentTimeSlots.addTimeSlot(newTimeSlot);
+                timeSlotsOfBand.add(newTimeSlot);
+                return new EventInfo(newTime, entry.getKey(), minutesOnStage);
             }
         }
         return null;
@@ -87,64 +139,198 @@ public class Program extends AbstractModel {
     }
 
     /**
-     * Creates a new EventInfo object with start time and stage
+     * Finds the earliest free time on the stage, at which the band does not play on another stage or in another event
      *
-     * @param currentListOfTimeSlots new EventInfo is added to this list
-     * @param band                   cannot play on the same time at a different stage
-     * @param currentStage           stage which should be a part of EvenetInfo object
-     * @param minutesOnStage         will be checked for a matching time gap till end of day
-     * @return EventInfo if all requirements are met, null otherwise
-     * @throws TimeSlotCantBeFoundException if band plays on another stage at same time
+     * @param timeSlotsOnStage      time slots of the stage
+     * @param band                  band, which wants to play
+     * @param timeSlotsOfBand       time slots of the band on this day
+     * @param date                  date of this program
+     * @param bandAvailabilityIndex plays of the band in all events, null if they are not checked
+     * @return minute (counted from the start time), -1 if there is no free time
      */
-    private EventInfo createEventInfoWithTimeSlotAtStart(List<TimeSlot> currentListOfTimeSlots, Band band, Stage currentStage, long minutesOnStage) throws TimeSlotCantBeFoundException {
-        // It will be at start time of the first day of festival
-        LocalTime time = this.lineUp.getStartTime();
-        if (canPlayBeforeTheEndOfDay(minutesOnStage, time)) {
-            TimeSlot timeSlot = new TimeSlot(time, band, minutesOnStage);
-            currentListOfTimeSlots.add(timeSlot);
-            return new EventInfo(time, currentStage);
-        } else {
-            return null;
+    private int findFreeMinute(TimeSlotList timeSlotsOnStage, Band band, List<TimeSlot> timeSlotsOfBand,
+                               LocalDate date, BandAvailabilityIndex bandAvailabilityIndex) {
+        long minutesOnStage = band.getMinutesOnStage();
+        int minute = findFreeMinute(timeSlotsOnStage, minutesOnStage, 0);
+        while (minute != -1) {
+            int endOfOverlappingPlay = findEndOfOverlappingPlay(band.getName(), minute, minutesOnStage, timeSlotsOfBand,
+                    date, bandAvailabilityIndex);
+            if (endOfOverlappingPlay == -1) {
+                return minute;
+            }
+            //every earlier time overlaps too, so the search goes on after the other play of the band
+            minute = findFreeMinute(timeSlotsOnStage, minutesOnStage, endOfOverlappingPlay);
         }
+        return -1;
     }
 
+    /**
+     * @return minute (counted from the start time), at which the overlapping play of the band ends,
+     * -1 if the band does not play at this time
+     */
+    private int findEndOfOverlappingPlay(String nameOfBand, int minute, long minutesOnStage, List<TimeSlot> timeSlotsOfBand,
+                                         LocalDate date, BandAvailabilityIndex bandAvailabilityIndex) {
+        TimeSlot overlappingTimeSlot = findOverlappingTimeSlot(timeSlotsOfBand, minute, minutesOnStage);
+        if (overlappingTimeSlot != null) {
+            return getMinute(overlappingTimeSlot) + (int) overlappingTimeSlot.getMinutesOnStage();
+        }
+        if (bandAvailabilityIndex == null) {
+            return -1;
+        }
+        long startOfDay = getStartOfDay(date);
+        long endOfOverlappingPlay = bandAvailabilityIndex.findEndOfOverlappingPlay(nameOfBand,
+                startOfDay + minute, minutesOnStage);
+        if (endOfOverlappingPlay == -1) {
+            return -1;
+        }
+        return (int) (endOfOverlappingPlay - startOfDay);
+    }
 
+    /**
+     * Moves the time slots of every stage as early as possible, the order of the bands on a stage stays the same
+     * There is a break after every band, the band does not play on two stages or in two events at the same time.
+     * The event info of the band is moved too.
+     *
+     * @param date                  date of this program
+     * @param bandAvailabilityIndex plays of the bands in all events, null if they are not checked
+     * @return minutes, which are free at the end of the stages after the compaction and were used before
+     */
+    long compact(LocalDate date, BandAvailabilityIndex bandAvailabilityIndex) {
+        long recoveredMinutes = 0;
+        long breakBetweenTwoBands = this.lineUp.getBreakBetweenTwoBandsInMinutes();
+        for (TimeSlotList timeSlotList : programsForStages.values()) {
+            List<TimeSlot> timeSlots = timeSlotList.getTimeSlots();
+            if (timeSlots.isEmpty()) {
+                continue;
+            }
+            int endBefore = getEndMinute(timeSlots.get(timeSlots.size() - 1));
+            int firstFreeMinute = 0;
+            for (TimeSlot timeSlot : new ArrayList<>(timeSlots)) {
+                int minute = getMinute(timeSlot);
+                int newMinute = findEarliestMinute(timeSlot, firstFreeMinute, minute, date, bandAvailabilityIndex);
+                if (newMinute < minute) {
+                    moveTimeSlot(timeSlotList, timeSlot, this.lineUp.getStartTime().plusMinutes(newMinute), date);
+                }
+                firstFreeMinute = (int) (newMinute + timeSlot.getMinutesOnStage() + breakBetweenTwoBands);
+            }
+            recoveredMinutes += endBefore - getEndMinute(timeSlots.get(timeSlots.size() - 1));
+        }
+        return recoveredMinutes;
+    }
 
     /**
-     * Provides new time on the given day
+     * The play is moved in the index at once, the caller loads the plays of the bands again,
+     * if the compaction is not saved (see LineUpCompactor.compact)
      *
-     * @param previousTimeSlot given timeSlot after which the band should play
-     * @param minutesOnStage   minutes the given band wants play on the stage
-     * @return new time, if is found, otherwise null
+     * @return earliest minute from firstFreeMinute on, at which the band of the time slot is free,
+     * minute of the time slot, if there is no earlier one
+     */
+    private int findEarliestMinute(TimeSlot timeSlot, int firstFreeMinute, int minute,
+                                   LocalDate date, BandAvailabilityIndex bandAvailabilityIndex) {
+        String nameOfBand = timeSlot.getNameOfBand();
+        List<TimeSlot> otherTimeSlotsOfBand = new ArrayList<>(getTimeSlotsOfBand(nameOfBand));
+        otherTimeSlotsOfBand.remove(timeSlot);
+        //the play of the time slot itself does not overlap
+        long start = getStartOfDay(date) + minute;
+        if (bandAvailabilityIndex != null) {
+            bandAvailabilityIndex.release(nameOfBand, start);
+        }
+        int newMinute = firstFreeMinute;
+        while (newMinute < minute) {
+            int endOfOverlappingPlay = findEndOfOverlappingPlay(nameOfBand, newMinute, timeSlot.getMinutesOnStage(),
+                    otherTimeSlotsOfBand, date, bandAvailabilityIndex);
+            if (endOfOverlappingPlay == -1) {
+                break;
+            }
+            newMinute = endOfOverlappingPlay;
+        }
+        newMinute = Math.min(newMinute, minute);
+        if (bandAvailabilityIndex != null) {
+            bandAvailabilityIndex.book(nameOfBand, start + newMinute - minute, timeSlot.getMinutesOnStage());
+        }
+        return newMinute;
+    }
+
+    private void moveTimeSlot(TimeSlotList timeSlotList, TimeSlot timeSlot, LocalTime newTime, LocalDate date) {
+        LocalTime oldTime = timeSlot.getTime();
+        Stage stage = findStageOf(timeSlotList);
+        timeSlotList.moveTimeSlot(timeSlot, newTime);
+        Band band = this.lineUp.getBand(timeSlot.getBand());
+        if (band == null) {
+            return;
+        }
+        for (EventInfo eventInfo : band.getEventInfos()) {
+            if (date.equals(eventInfo.getDate()) && oldTime.equals(eventInfo.getTime())
+                    && eventInfo.getStage() != null && eventInfo.getStage().getStageName().equals(stage.getStageName())) {
+                eventInfo.setTime(newTime);
+                return;
+            }
+        }
+    }
+
+    private Stage findStageOf(TimeSlotList timeSlotList) {
+        for (Map.Entry<Stage, TimeSlotList> entry : programsForStages.entrySet()) {
+            if (entry.getValue() == timeSlotList) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * the break after the band belongs to the time slot
      */
-    private LocalTime getNewTime(TimeSlot previousTimeSlot, long minutesOnStage) {
+    private int getEndMinute(TimeSlot timeSlot) {
+        return (int) (getMinute(timeSlot) + timeSlot.getMinutesOnStage() + this.lineUp.getBreakBetweenTwoBandsInMinutes());
+    }
 
-        LocalTime previousTime = previousTimeSlot.getTime().plusMinutes(previousTimeSlot.getMinutesOnStage());
-        LocalTime previousTimePlusBreak = previousTime.plusMinutes(this.lineUp.getBreakBetweenTwoBandsInMinutes());
+    private int findFreeMinute(TimeSlotList timeSlotsOnStage, long minutesOnStage, int fromMinute) {
+        return timeSlotsOnStage.findFreeMinute(minutesOnStage, fromMinute, this.lineUp.getStartTime(),
+                this.lineUp.getEndTime(), this.lineUp.getBreakBetweenTwoBandsInMinutes());
+    }
 
-        if (canPlayBeforeTheEndOfDay(minutesOnStage, previousTimePlusBreak)) {
-            return previousTimePlusBreak;
+    private TimeSlot findOverlappingTimeSlot(List<TimeSlot> timeSlotsOfBand, int minute, long minutesOnStage) {
+        for (int i = 0; i < timeSlotsOfBand.size(); i++) {
+            TimeSlot timeSlot = timeSlotsOfBand.get(i);
+            int startMinute = getMinute(timeSlot);
+            if (minute < startMinute + timeSlot.getMinutesOnStage() && startMinute < minute + minutesOnStage) {
+                return timeSlot;
+            }
         }
         return null;
     }
 
     /**
-     * Compares offsets between (end time - last timeSlot) and duration on stage
-     * Checks if the band has time to play until the day is over
-     *
-     * @param minutesOnStage
-     * @param previousTimePlusBreak previous time and given break between plays
-     * @return if the band has time to play: true, otherwise: false
+     * @return minute of the time slot counted from the start time
      */
+    private int getMinute(TimeSlot timeSlot) {
+        return timeSlot.getMinuteOfDay() - Minutes.ofDay(this.lineUp.getStartTime());
+    }
 
-    private boolean canPlayBeforeTheEndOfDay(long minutesOnStage, LocalTime previousTimePlusBreak) {
-        LocalTime endTime = this.lineUp.getEndTime();
+    /**
+     * @return start time of the day in minutes since 1970-01-01
+     */
+    private long getStartOfDay(LocalDate date) {
+        return Minutes.ofEpoch(date, Minutes.ofDay(this.lineUp.getStartTime()));
+    }
 
-        LocalTime previousTime = previousTimePlusBreak;
-        if (previousTime.until(endTime, MINUTES) >= minutesOnStage) {
-            return true;
+    /**
+     * @return time slots of the band on all stages of this day
+     */
+    private List<TimeSlot> getTimeSlotsOfBand(Band band) {
+        return getTimeSlotsOfBand(band.getName());
+    }
+
+    private List<TimeSlot> getTimeSlotsOfBand(String nameOfBand) {
+        if (timeSlotsOfBands == null) {
+            timeSlotsOfBands = new HashMap<>();
+            for (TimeSlotList timeSlotList : programsForStages.values()) {
+                for (TimeSlot timeSlot : timeSlotList.getTimeSlots()) {
+                    timeSlotsOfBands.computeIfAbsent(timeSlot.getNameOfBand(), name -> new ArrayList<>()).add(timeSlot);
+                }
+            }
         }
-        return false;
+        return timeSlotsOfBands.computeIfAbsent(nameOfBand, name -> new ArrayList<>());
     }
 
     /**
@@ -153,13 +339,11 @@ public class Program extends AbstractModel {
      * @return if a band plays on the stage: true, otherwise: false
      */
     public boolean existOnStageTimeSlots(String stageName) {
-        for (Map.Entry<Stage, TimeSlotList> entry : programsForStages.entrySet()) {
-            Stage currentStage = entry.getKey();
-            if (currentStage.getStageName().equals(stageName)) {
-                return !entry.getValue().getTimeSlots().isEmpty();
-            }
+        Stage stage = getStagesByName().get(stageName);
+        if (stage == null) {
+            return false;
         }
-        return false;
+        return !programsForStages.get(stage).getTimeSlots().isEmpty();
     }
 
     /**
@@ -168,7 +352,20 @@ public class Program extends AbstractModel {
      *
      */
     public void removeStage(String stageName) {
-        programsForStages.entrySet().removeIf(entry->entry.getKey().getStageName().equals(stageName));
+        Stage stage = getStagesByName().remove(stageName);
+        if (stage != null) {
+            programsForStages.remove(stage);
+        }
+    }
+
+    private Map<String, Stage> getStagesByName() {
+        if (stagesByName == null) {
+            stagesByName = new HashMap<>();
+            for (Stage stage : programsForStages.keySet()) {
+                stagesByName.put(stage.getStageName(), stage);
+            }
+        }
+        return stagesByName;
     }
 
     /**
@@ -180,12 +377,11 @@ public class Program extends AbstractModel {
     public void removeBand(Band band) {
 
         for (Map.Entry<Stage, TimeSlotList> entry : programsForStages.entrySet()) {
-            List<TimeSlot> timeSlotsPerStage = entry.getValue().getTimeSlots();
-
-            timeSlotsPerStage.removeIf(s -> isTheSameBand(s, band));
-
+            entry.getValue().removeTimeSlotsOfBand(band);
+        }
+        if (timeSlotsOfBands != null) {
+            timeSlotsOfBands.remove(band.getName());
         }
-
 
     }
 
@@ -201,7 +397,7 @@ public class Program extends AbstractModel {
     }
 
     /**
-     * Removes band from certain time slot
+     * Removes band from certain time slot, the time is free for other bands again
      *
      * @param band the band, which should be removed
      * @param time the time, the band should be removed
@@ -210,35 +406,17 @@ public class Program extends AbstractModel {
     public boolean removeBand(Band band, LocalTime time) {
 
         for (Map.Entry<Stage, TimeSlotList> entry : programsForStages.entrySet()) {
-            List<TimeSlot> currentTimeSlotsOnStage = entry.getValue().getTimeSlots();
-            if (currentTimeSlotsOnStage.isEmpty()) {
-                return false;
-            }
-            if (removeTimeSlotIfTimeInList(currentTimeSlotsOnStage, band, time)) {
+            TimeSlot removedTimeSlot = entry.getValue().removeTimeSlot(band, time);
+            if (removedTimeSlot != null) {
+                if (timeSlotsOfBands != null) {
+                    getTimeSlotsOfBand(band).remove(removedTimeSlot);
+                }
                 return true;
             }
         }
         return false;
     }
 
-    /**
-     * @param currentTimeSlotsOnStage time slots which should be checked
-     * @param band                    which should be found in time slots
-     * @param time                    time which should be found in time slot
-     * @return true if such a time slot is found, false otherwise
-     */
-    private boolean removeTimeSlotIfTimeInList(List<TimeSlot> currentTimeSlotsOnStage, Band band, LocalTime time) {
-        for (int i = 0; i < currentTimeSlotsOnStage.size(); i++) {
-            String nameOfCurrentBand = currentTimeSlotsOnStage.get(i).getNameOfBand();
-            LocalTime timeInCurrentTimeSlot = currentTimeSlotsOnStage.get(i).getTime();
-            //if time and band name correspond we can remove this time slot
-            if (timeInCurrentTimeSlot.equals(time) && band.getName().equals(nameOfCurrentBand)) {
-                currentTimeSlotsOnStage.remove(currentTimeSlotsOnStage.get(i));
-                return true;
-            }
-        }
-        return false;
-    }
     public Map<Stage, TimeSlotList> getProgramsForStages() {
         return programsForStages;
     }
@@ -0,0 +1,104 @@
+package de.bord.festival.models;
+
+import de.bord.festival.ticket.TicketInventory;
+import de.bord.festival.ticket.Type;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Entry of the sales journal: one sale of a cart, it is never changed after it is written
+ * <p>
+ * The numbers of tickets and the income of all records of a TicketManager
+ * give the numbers of tickets left and the income of the TicketManager.
+ * A sale, which has to be taken back, is recorded again with negative numbers.
+ */
+@Entity
+@Immutable
+@Table(indexes = @Index(columnList = "ticketManagerId, id"))
+public class SaleRecord extends AbstractModel {
+
+    private long ticketManagerId;
+    private long clientId;
+    private int numberOfDayTickets;
+    private int numberOfCampingTickets;
+    private int numberOfVipTickets;
+    private Money income;
+
+    public SaleRecord() {
+    }
+
+    private SaleRecord(long ticketManagerId, long clientId, int numberOfDayTickets,
+                       int numberOfCampingTickets, int numberOfVipTickets, Money income) {
+        this.ticketManagerId = ticketManagerId;
+        this.clientId = clientId;
+        this.numberOfDayTickets = numberOfDayTickets;
+        this.numberOfCampingTickets = numberOfCampingTickets;
+        this.numberOfVipTickets = numberOfVipTickets;
+        this.income = income;
+    }
+
+    /**
+     * Records the sale of the whole cart of the client, it has to be called before the cart is sold
+     *
+     * @param ticketManagerId
+     * @param client
+     * @return record of the sale
+     */
+    public static SaleRecord ofCart(long ticketManagerId, Client client) {
+        return new SaleRecord(ticketManagerId, client.getId(),
+                client.getNumberOfTicketsInBasket(Type.DAY),
+                client.getNumberOfTicketsInBasket(Type.CAMPING),
+                client.getNumberOfTicketsInBasket(Type.VIP),
+                Money.ofCents(client.getExpenditureInCentsByPricesFromCart()));
+    }
+
+    /**
+     * @return record, which takes this sale back
+     */
+    public SaleRecord reversed() {
+        return new SaleRecord(ticketManagerId, clientId, -numberOfDayTickets,
+                -numberOfCampingTickets, -numberOfVipTickets, Money.ZERO.minus(income));
+    }
+
+    /**
+     * @return number of tickets sold, index is the ordinal of the type
+     */
+    public int[] getNumberOfTicketsPerType() {
+        int[] numberOfTicketsPerType = TicketInventory.emptyCart();
+        numberOfTicketsPerType[Type.DAY.ordinal()] = numberOfDayTickets;
+        numberOfTicketsPerType[Type.CAMPING.ordinal()] = numberOfCampingTickets;
+        numberOfTicketsPerType[Type.VIP.ordinal()] = numberOfVipTickets;
+        return numberOfTicketsPerType;
+    }
+
+    public long getTicketManagerId() {
+        return ticketManagerId;
+    }
+
+    public long getClientId() {
+        return clientId;
+    }
+
+    public int getNumberOfDayTickets() {
+        return numberOfDayTickets;
+    }
+
+    public int getNumberOfCampingTickets() {
+        return numberOfCampingTickets;
+    }
+
+    public int getNumberOfVipTickets() {
+        return numberOfVipTickets;
+    }
+
+    public double getIncome() {
+        return income.toDouble();
+    }
+
+    public long getIncomeInCents() {
+        return income.getCents();
+    }
+}
@@ -15,12 +15,12 @@ import javax.persistence.InheritanceType;
 public abstract class Ticket extends AbstractModel {
 
     protected String description;
-    protected double stdPrice;
+    protected Money stdPrice;
 
     public Ticket(String description, double standardPrice) {
 
         this.description = description;
-        this.stdPrice = standardPrice;
+        this.stdPrice = Money.of(standardPrice);
     }
 
     public Ticket(){}
@@ -31,11 +31,15 @@ public abstract class Ticket extends AbstractModel {
         this.description = description;
     }
     public void setStdPrice(double stdPrice){
-        this.stdPrice = stdPrice;
+        this.stdPrice = Money.of(stdPrice);
     }
 
     public double getStdPrice() {
-        return this.stdPrice;
+        return this.stdPrice.toDouble();
+    }
+
+    public long getStdPriceInCents() {
+        return this.stdPrice.getCents();
     }
     public String getDescription(){
         return this.description;
@@ -60,8 +60,29 @@ public class TicketManager extends AbstractModel implements ITicketManager {
     private int numberOfCampingTickets;
     private int numberOfVipTickets;
 
-    private double incomeTicketSales = 0.0;
+    /**
+     * in cents
+     */
+    private long incomeTicketSales;
     private boolean automaticPriceLevelChange = true;
+    /**
+     * id of the last SaleRecord folded into this TicketManager, the journal replays only the records after it
+     */
+    private long lastSaleRecordId;
+
+    /**
+     * the actual stock of tickets left, the ...ticketsLeft fields are synchronized with it before saving
+     * it belongs to this instance only, the sales use the instance of the SalesJournal
+     */
+    @Transient
+    private TicketInventory inventory;
+
+    /**
+     * number of sold tickets, at which the percentage of a price level is exceeded,
+     * it is built from the price levels when it is needed first
+     */
+    @Transient
+    private int[] soldTicketsToExceedPriceLevel;
 
     public TicketManager(List<PriceLevel> priceLevels,
                          int numberOfDayTickets,
@@ -79,9 +100,30 @@ public class TicketManager extends AbstractModel implements ITicketManager {
         this.numberOfDayTickets = numberOfDayTickets;
         this.numberOfCampingTickets = numberOfCampingTickets;
         this.numberOfVipTickets = numberOfVipTickets;
+        createInventory();
         setTicketPrices();
     }
 
+    /**
+     * creates the stock of tickets left from the persisted numbers
+     */
+    @PostLoad
+    private void createInventory() {
+        this.inventory = new TicketInventory(numberOfDayTicketsLeft, numberOfCampingTicketsLeft, numberOfVipTicketsLeft);
+    }
+
+    /**
+     * writes the actual stock of tickets left into the persisted fields
+     * held tickets are saved as not sold, holds are not kept after a restart
+     */
+    @PrePersist
+    @PreUpdate
+    private void synchronizeTicketsLeft() {
+        this.numberOfDayTicketsLeft = inventory.getTicketsNotSold(Type.DAY);
+        this.numberOfCampingTicketsLeft = inventory.getTicketsNotSold(Type.CAMPING);
+        this.numberOfVipTicketsLeft = inventory.getTicketsNotSold(Type.VIP);
+    }
+
     /**
      * @param type
      * @return the ticket of the corresponding type of the actual price level
@@ -120,14 +162,23 @@ public class TicketManager extends AbstractModel implements ITicketManager {
      * @return boolean whether there are enough tickets available
      */
     public boolean isAvailable(Type type, int numberOfCartTickets) {
-        if (type == Type.DAY && this.numberOfDayTicketsLeft - numberOfCartTickets >= 0) {
-            return true;
-        } else if (type == Type.CAMPING && this.numberOfCampingTicketsLeft - numberOfCartTickets >= 0) {
-            return true;
-        } else if (type == Type.VIP && this.numberOfVipTicketsLeft - numberOfCartTickets >= 0) {
-            return true;
+        return inventory.isAvailable(type, numberOfCartTickets);
+    }
+
+    /**
+     * Holds one ticket of the given type for a shopping cart.
+     * If the ticket is not sold in time, the hold expires and the TicketHoldSweeper gives the ticket back,
+     * the TicketManagerLanes register the holds of the carts there.
+     *
+     * @param type
+     * @return the hold, which is converted into a sale by sellTickets
+     * @throws TicketNotAvailableException if no ticket of the type is left
+     */
+    public TicketHold holdTicket(Type type) throws TicketNotAvailableException {
+        if (!inventory.holdTicket(type)) {
+            throw new TicketNotAvailableException("No more tickets available");
         }
-        return false;
+        return new TicketHold(inventory, type, TicketHold.HOLD_DURATION);
     }
 
     /**
@@ -186,14 +237,15 @@ public class TicketManager extends AbstractModel implements ITicketManager {
 
     /**
      * helper function for if statement
+     * The percentage is compared as number of sold tickets, so no percentage is calculated for a sale.
      *
      * @return returns whether the expected percentage has been reached
      * @see #updatePriceLevel
      */
     private boolean isPercentageOfSoldTicketsExceededAndIsTheNextPriceLevelExisting() {
 
-        if (totalNumberOfSoldTicketsInPercent() > priceLevels.get(this.actualPriceLevel).getPercentageForPriceLevel()
-                && this.priceLevels.size() > this.actualPriceLevel + 1) {
+        if (this.priceLevels.size() > this.actualPriceLevel + 1
+                && totalNumberOfSoldTickets() >= getSoldTicketsToExceedPriceLevel()[this.actualPriceLevel]) {
 
             return true;
 
@@ -201,6 +253,29 @@ public class TicketManager extends AbstractModel implements ITicketManager {
         return false;
     }
 
+    private int[] getSoldTicketsToExceedPriceLevel() {
+        if (soldTicketsToExceedPriceLevel == null) {
+            soldTicketsToExceedPriceLevel = createSoldTicketsToExceedPriceLevel();
+        }
+        return soldTicketsToExceedPriceLevel;
+    }
+
+    /**
+     * Translates the percentage of every price level into a number of sold tickets.
+     * The percentage p is exceeded, if sold / total * 100 > p, so if sold >= floor(p * total / 100) + 1
+     *
+     * @return number of sold tickets per price level index
+     */
+    private int[] createSoldTicketsToExceedPriceLevel() {
+        int[] soldTickets = new int[priceLevels.size()];
+        int totalNumberOfTickets = totalNumberOfTickets();
+        for (int index = 0; index < soldTickets.length; index++) {
+            double percentage = priceLevels.get(index).getPercentageForPriceLevel();
+            soldTickets[index] = (int) Math.floor(percentage * totalNumberOfTickets / 100) + 1;
+        }
+        return soldTickets;
+    }
+
     public int getNumberOfDayTickets() {
         return numberOfDayTickets;
     }
@@ -218,31 +293,31 @@ public class TicketManager extends AbstractModel implements ITicketManager {
     }  //variable???
 
     public int getNumberOfDayTicketsLeft() {
-        return numberOfDayTicketsLeft;
+        return inventory.getTicketsNotSold(Type.DAY);
     }
 
     public int getNumberOfCampingTicketsLeft() {
-        return numberOfCampingTicketsLeft;
+        return inventory.getTicketsNotSold(Type.CAMPING);
     }
 
     public int getNumberOfVipTicketsLeft() {
-        return numberOfVipTicketsLeft;
+        return inventory.getTicketsNotSold(Type.VIP);
     }
 
     public int totalNumberOfTicketsLeft() {
-        return numberOfDayTicketsLeft + numberOfCampingTicketsLeft + numberOfVipTicketsLeft;
+        return getNumberOfDayTicketsLeft() + getNumberOfCampingTicketsLeft() + getNumberOfVipTicketsLeft();
     }
 
     public int getNumberOfSoldDayTickets() {
-        return numberOfDayTickets - numberOfDayTicketsLeft;
+        return numberOfDayTickets - getNumberOfDayTicketsLeft();
     }
 
     public int getNumberOfSoldCampingTickets() {
-        return numberOfCampingTickets - numberOfCampingTicketsLeft;
+        return numberOfCampingTickets - getNumberOfCampingTicketsLeft();
     }
 
     public int getNumberOfSoldVipTickets() {
-        return numberOfVipTickets - numberOfVipTicketsLeft;
+        return numberOfVipTickets - getNumberOfVipTicketsLeft();
     }
 
     public int totalNumberOfSoldTickets() {
@@ -255,14 +330,22 @@ public class TicketManager extends AbstractModel implements ITicketManager {
         return 100 - ((totalNumberOfTicketsLeft / totalNumberOfTickets) * 100);
     }
 
-    private void updateIncomeTicketSales(double ticketPrice) {
-        this.incomeTicketSales += ticketPrice;
+    private void updateIncomeTicketSales(long ticketPriceInCents) {
+        this.incomeTicketSales = Money.plusCents(incomeTicketSales, ticketPriceInCents);
     }
 
     public double getIncomeTicketSales() {
+        return Money.ofCents(incomeTicketSales).toDouble();
+    }
+
+    public long getIncomeTicketSalesInCents() {
         return incomeTicketSales;
     }
 
+    public long getLastSaleRecordId() {
+        return lastSaleRecordId;
+    }
+
     public int getActualPriceLevelIndex() {   //Exception
         return actualPriceLevel;
     }
@@ -287,11 +370,10 @@ public class TicketManager extends AbstractModel implements ITicketManager {
 
         if (isPriceLevelChangeAutomatic) {
             actualPriceLevel = 0;
-            int i = 0;
-            while (i < priceLevels.size()) {
-                updatePriceLevel();
-                i++;
+            while (isPercentageOfSoldTicketsExceededAndIsTheNextPriceLevelExisting()) {
+                actualPriceLevel++;
             }
+            setTicketPrices();
         }
         this.automaticPriceLevelChange = isPriceLevelChangeAutomatic;
 
@@ -344,68 +426,143 @@ public class TicketManager extends AbstractModel implements ITicketManager {
 
     public void setPriceLevels(List<PriceLevel> priceLevels) {
         this.priceLevels = priceLevels;
+        this.soldTicketsToExceedPriceLevel = null;
     }
 
     /**
      * Tickets inside the customer's shopping cart are removed
      * when tickets are sold and added to his inventory.
-     * The attribute ...ticketsLeft is decreased by the number of tickets sold.
+     * The held tickets of the cart are sold, the other tickets of the cart are taken
+     * all-or-nothing from the ticket inventory without a lock, so concurrent sales can not oversell.
      * The income in TicketManager and the expenditure in client
      * are increased by the total price of the tickets sold.
      * At the end it is checked whether the price level should change and is if necessary adjusted.
      *
      * @param client
-     * @return returns whether the tickets from the customer's basket were available
+     * @throws TicketNotAvailableException if the tickets from the customer's basket are not available
      */
     public void sellTickets(Client client) throws TicketNotAvailableException {
 
-        int numberOfDayTicketsSold = 0;
-        int numberOfCampingTicketsSold = 0;
-        int numberOfVipTicketsSold = 0;
-        double ticketIncome = 0.0;
-
-        int index = 0;
-
-        while (index < client.getCartSize()) {
-            Type ticketType = client.getCartItem(index).getTicketType();
-            if (ticketType == Type.DAY) {
-                if (isAvailable(ticketType, numberOfDayTicketsSold+1)) {
-                    numberOfDayTicketsSold++;
-                    ticketIncome += client.getCartItem(index).getStdPrice();
-                } else {
-                    throw new TicketNotAvailableException("Not enough day-tickets available");
-                }
-            } else if (ticketType == Type.CAMPING) {
-                if (isAvailable(ticketType, numberOfCampingTicketsSold+1)) {
-                    numberOfCampingTicketsSold++;
-                    ticketIncome += client.getCartItem(index).getStdPrice();
-                } else {
-                    throw new TicketNotAvailableException("Not enough camping-tickets available");
-                }
-            } else if (ticketType == Type.VIP) {
-                if (isAvailable(ticketType, numberOfVipTicketsSold+1)) {
-                    numberOfVipTicketsSold++;
-                    ticketIncome += client.getCartItem(index).getStdPrice();
-                } else {
-                    throw new TicketNotAvailableException("Not enough VIP-tickets available");
-                }
+        int[] numberOfTicketsToTake = TicketInventory.emptyCart();
+        long ticketIncomeInCents = 0;
+
+        for (int index = 0; index < client.getCartSize(); index++) {
+            Ticket ticket = client.getCartItem(index);
+            numberOfTicketsToTake[ticket.getTicketType().ordinal()]++;
+            ticketIncomeInCents += ticket.getStdPriceInCents();
+        }
+
+        List<TicketHold> claimedHolds = claimHolds(client, numberOfTicketsToTake);
+        Type notAvailableType = inventory.takeTickets(numberOfTicketsToTake);
+        if (notAvailableType != null) {
+            for (TicketHold hold : claimedHolds) {
+                hold.unclaim();
             }
-            index++;
         }
-        this.numberOfDayTicketsLeft -= numberOfDayTicketsSold;
-        this.numberOfCampingTicketsLeft -= numberOfCampingTicketsSold;
-        this.numberOfVipTicketsLeft -= numberOfVipTicketsSold;
+        if (notAvailableType == Type.DAY) {
+            throw new TicketNotAvailableException("Not enough day-tickets available");
+        } else if (notAvailableType == Type.CAMPING) {
+            throw new TicketNotAvailableException("Not enough camping-tickets available");
+        } else if (notAvailableType == Type.VIP) {
+            throw new TicketNotAvailableException("Not enough VIP-tickets available");
+        }
+        for (TicketHold hold : claimedHolds) {
+            hold.sell();
+        }
+        synchronizeTicketsLeft();
 
         client.addOrder();
-        client.addCartToInventory();
         client.clearCart();
-        updateIncomeTicketSales(ticketIncome);
-        client.setExpenditure(ticketIncome);
+        client.addToExpenditure(ticketIncomeInCents);
+        updateIncomeAndPriceLevel(ticketIncomeInCents);
+    }
+
+    /**
+     * Claims the holds of the client in this TicketManager for the sale
+     *
+     * @param client
+     * @param numberOfTicketsToTake is reduced by the claimed holds
+     * @return claimed holds
+     */
+    private List<TicketHold> claimHolds(Client client, int[] numberOfTicketsToTake) {
+        List<TicketHold> claimedHolds = new LinkedList<>();
+        for (TicketHold hold : client.getHolds()) {
+            int typeIndex = hold.getType().ordinal();
+            if (hold.isHeldIn(inventory) && numberOfTicketsToTake[typeIndex] > 0 && hold.claim()) {
+                numberOfTicketsToTake[typeIndex]--;
+                claimedHolds.add(hold);
+            }
+        }
+        return claimedHolds;
+    }
+
+    /**
+     * The stock is already taken lock-free, only the income and the price level
+     * of the sale are booked under the lock of this TicketManager
+     *
+     * @param ticketIncomeInCents total price of the tickets sold
+     */
+    private synchronized void updateIncomeAndPriceLevel(long ticketIncomeInCents) {
+        updateIncomeTicketSales(ticketIncomeInCents);
 
         if (automaticPriceLevelChange) {
             updatePriceLevel();
         }
     }
+
+    /**
+     * Folds a sale of the sales journal into the tickets left, the income and the price level.
+     * The sale was already checked against the stock, when it was recorded.
+     *
+     * @param sale
+     */
+    public void applySaleRecord(SaleRecord sale) {
+        inventory.removeTickets(sale.getNumberOfTicketsPerType());
+        updateIncomeAndPriceLevel(sale.getIncomeInCents());
+        lastSaleRecordId = Math.max(lastSaleRecordId, sale.getId());
+    }
+
+    /**
+     * Takes back a sale, which could not be saved
+     *
+     * @param sale
+     */
+    public void cancelSale(SaleRecord sale) {
+        inventory.giveBackTickets(sale.getNumberOfTicketsPerType());
+        updateIncomeAndPriceLevel(-sale.getIncomeInCents());
+    }
+
+    /**
+     * Sets the tickets left, the income and the price level back to the state before the first sale,
+     * so the sales journal can be replayed
+     */
+    public void resetSales() {
+        this.inventory = new TicketInventory(numberOfDayTickets, numberOfCampingTickets, numberOfVipTickets);
+        this.incomeTicketSales = 0;
+        this.lastSaleRecordId = 0;
+        if (automaticPriceLevelChange) {
+            this.actualPriceLevel = 0;
+            setTicketPrices();
+        }
+    }
+
+    /**
+     * Takes the price level of the committed TicketManager.
+     * With the automatic price level change the price level is calculated from the tickets sold by this instance,
+     * because the committed TicketManager may not contain the latest sales yet.
+     *
+     * @param ticketManager committed TicketManager
+     */
+    public synchronized void takePriceLevel(TicketManager ticketManager) {
+        if (ticketManager.getAutomaticPriceLevelChange()) {
+            setAutomaticPriceLevelChange(true);
+        } else {
+            this.automaticPriceLevelChange = false;
+            this.actualPriceLevel = ticketManager.getActualPriceLevelIndex();
+            setTicketPrices();
+        }
+    }
+
     public void update(TicketManager ticketManager){
 
         setTicketDescription(ticketManager.getTicket(Type.DAY).description, Type.DAY);
@@ -40,7 +40,28 @@ public class TimeSlot extends AbstractModel {
         return time;
     }
 
+    /**
+     * @return minute of the day, at which the band starts, the search for time slots works with it
+     */
+    int getMinuteOfDay() {
+        return Minutes.ofDay(time);
+    }
+
     public long getMinutesOnStage() {
         return minutesOnStage;
     }
+
+    /**
+     * only TimeSlotList moves a time slot, so its index of the free time is kept up to date
+     */
+    void setTime(LocalTime time) {
+        this.time = time;
+    }
+
+    /**
+     * @return copy of this time slot, which is not saved
+     */
+    TimeSlot copy() {
+        return new TimeSlot(time, band, minutesOnStage);
+    }
 }
@@ -3,21 +3,211 @@ package de.bord.festival.models;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
+import javax.persistence.OrderColumn;
+import javax.persistence.Transient;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Time slots of one stage on one day, sorted by time
+ * <p>
+ * The time slots are only changed with the methods of this class,
+ * so the index of the free time of the stage is kept up to date.
+ * The time slots are kept in an array list and are found by binary search over their minute of the day.
+ * The position of every time slot is saved, so they are read from the database in the right order.
+ */
 @Entity
 public class TimeSlotList extends AbstractModel {
     @OneToMany(cascade = CascadeType.ALL)
+    @OrderColumn
     private List<TimeSlot> timeSlots;
 
+    /**
+     * free time of the stage, it is built from the time slots when it is needed first
+     */
+    @Transient
+    private FreeTimeIndex freeTimeIndex;
+    @Transient
+    private int startMinuteOfIndex;
+    @Transient
+    private long breakOfIndex;
+
     public TimeSlotList() {
 
-        this.timeSlots = new LinkedList<>();
+        this.timeSlots = new ArrayList<>();
     }
 
 
     public List<TimeSlot> getTimeSlots() {
         return timeSlots;
     }
+
+    /**
+     * @return copy of this list with copies of the time slots, which is not saved
+     */
+    TimeSlotList copy() {
+        TimeSlotList copy = new TimeSlotList();
+        for (TimeSlot timeSlot : timeSlots) {
+            copy.timeSlots.add(timeSlot.copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the earliest time, at which the band can play on this stage
+     *
+     * @param minutesOnStage       minutes the band wants to play
+     * @param fromMinute           the band plays at this minute (counted from the start time) or later
+     * @param startTime            start time of the day
+     * @param endTime              end time of the day
+     * @param breakBetweenTwoBands break after every band
+     * @return minute (counted from the start time), -1 if there is no free time
+     */
+    int findFreeMinute(long minutesOnStage, int fromMinute, LocalTime startTime, LocalTime endTime, long breakBetweenTwoBands) {
+        FreeTimeIndex index = getFreeTimeIndex(startTime, endTime, breakBetweenTwoBands);
+        if (minutesOnStage + breakBetweenTwoBands > index.getNumberOfMinutes()) {
+            return -1;
+        }
+        return index.findFirstFreeRun((int) (minutesOnStage + breakBetweenTwoBands), fromMinute);
+    }
+
+    /**
+     * Adds the time slot at the position of its time
+     *
+     * @param timeSlot
+     */
+    void addTimeSlot(TimeSlot timeSlot) {
+        timeSlots.add(findFirstIndexAfter(timeSlot.getMinuteOfDay()), timeSlot);
+        if (freeTimeIndex != null) {
+            freeTimeIndex.occupy(getStartMinute(timeSlot), getEndMinute(timeSlot));
+        }
+    }
+
+    /**
+     * Removes all time slots of the band
+     *
+     * @param band
+     * @return removed time slots
+     */
+    List<TimeSlot> removeTimeSlotsOfBand(Band band) {
+        List<TimeSlot> removedTimeSlots = new LinkedList<>();
+        Iterator<TimeSlot> iterator = timeSlots.iterator();
+        while (iterator.hasNext()) {
+            TimeSlot timeSlot = iterator.next();
+            if (timeSlot.getNameOfBand().equals(band.getName())) {
+                iterator.remove();
+                freeTime(timeSlot);
+                removedTimeSlots.add(timeSlot);
+            }
+        }
+        return removedTimeSlots;
+    }
+
+    /**
+     * Removes the time slot of the band at the given time
+     *
+     * @param band
+     * @param time
+     * @return removed time slot, null if there is none
+     */
+    TimeSlot removeTimeSlot(Band band, LocalTime time) {
+        //only the time slots with the given time are checked
+        int minuteOfDay = Minutes.ofDay(time);
+        for (int i = findFirstIndexAtOrAfter(minuteOfDay); i < timeSlots.size() && timeSlots.get(i).getMinuteOfDay() == minuteOfDay; i++) {
+            TimeSlot timeSlot = timeSlots.get(i);
+            if (band.getName().equals(timeSlot.getNameOfBand())) {
+                timeSlots.remove(i);
+                freeTime(timeSlot);
+                return timeSlot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return index of the first time slot, which starts at the given minute of the day or later
+     */
+    private int findFirstIndexAtOrAfter(int minuteOfDay) {
+        int low = 0;
+        int high = timeSlots.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeSlots.get(middle).getMinuteOfDay() < minuteOfDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first time slot, which starts after the given minute of the day
+     */
+    private int findFirstIndexAfter(int minuteOfDay) {
+        int low = 0;
+        int high = timeSlots.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeSlots.get(middle).getMinuteOfDay() > minuteOfDay) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the time slot to an earlier time, which is after the time slot before it,
+     * so the order of the time slots stays the same
+     *
+     * @param timeSlot time slot of this list
+     * @param time     new time
+     */
+    void moveTimeSlot(TimeSlot timeSlot, LocalTime time) {
+        freeTime(timeSlot);
+        timeSlot.setTime(time);
+        if (freeTimeIndex != null) {
+            freeTimeIndex.occupy(getStartMinute(timeSlot), getEndMinute(timeSlot));
+        }
+    }
+
+    private void freeTime(TimeSlot timeSlot) {
+        if (freeTimeIndex != null) {
+            freeTimeIndex.free(getStartMinute(timeSlot), getEndMinute(timeSlot));
+        }
+    }
+
+    /**
+     * builds the index again, if the times of the lineUp were changed
+     */
+    private FreeTimeIndex getFreeTimeIndex(LocalTime startTime, LocalTime endTime, long breakBetweenTwoBands) {
+        int startMinute = Minutes.ofDay(startTime);
+        int numberOfMinutes = (int) (Minutes.ofDay(endTime) - startMinute + breakBetweenTwoBands);
+        if (freeTimeIndex == null || startMinute != startMinuteOfIndex || breakOfIndex != breakBetweenTwoBands
+                || freeTimeIndex.getNumberOfMinutes() != numberOfMinutes) {
+            startMinuteOfIndex = startMinute;
+            breakOfIndex = breakBetweenTwoBands;
+            freeTimeIndex = new FreeTimeIndex(numberOfMinutes);
+            for (TimeSlot timeSlot : timeSlots) {
+                freeTimeIndex.occupy(getStartMinute(timeSlot), getEndMinute(timeSlot));
+            }
+        }
+        return freeTimeIndex;
+    }
+
+    private int getStartMinute(TimeSlot timeSlot) {
+        return timeSlot.getMinuteOfDay() - startMinuteOfIndex;
+    }
+
+    /**
+     * the break after the band belongs to the time slot
+     */
+    private int getEndMinute(TimeSlot timeSlot) {
+        return (int) (getStartMinute(timeSlot) + timeSlot.getMinutesOnStage() + breakOfIndex);
+    }
 }
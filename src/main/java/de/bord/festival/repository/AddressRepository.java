@@ -1,8 +1,17 @@
 package de.bord.festival.repository;
 
 import de.bord.festival.models.Address;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface AddressRepository extends CrudRepository<Address, Long>{
+    /**
+     * the result is kept in the query cache, the address itself in the second level cache
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Address findById(long id);
 }
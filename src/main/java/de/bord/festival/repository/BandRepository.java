@@ -1,8 +1,28 @@
 package de.bord.festival.repository;
 
+import de.bord.festival.eventManagement.BandBooking;
 import de.bord.festival.models.Band;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 public interface BandRepository extends CrudRepository<Band, Long>{
     Band findById(long id);
+
+    /**
+     * @return plays of all bands in all events on the given date or later
+     */
+    @Query("select new de.bord.festival.eventManagement.BandBooking(b.name, i.date, i.time, i.minutesOnStage) "
+            + "from Band b join b.eventInfos i where i.date >= ?1")
+    List<BandBooking> findBookingsFrom(LocalDate date);
+
+    /**
+     * @return plays of the given bands in all events on the given date or later
+     */
+    @Query("select new de.bord.festival.eventManagement.BandBooking(b.name, i.date, i.time, i.minutesOnStage) "
+            + "from Band b join b.eventInfos i where b.name in ?1 and i.date >= ?2")
+    List<BandBooking> findBookingsOfBandsFrom(Collection<String> namesOfBands, LocalDate date);
 }
@@ -1,13 +1,41 @@
 package de.bord.festival.repository;
 
 import de.bord.festival.models.Client;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * The clients are read page by page: a page starts after the id of the last client of the page before
+ * (keyset paging), so every page is read by the primary key index, however far it is.
+ * The paging and the stream are meant for jobs over all clients, no controller uses them yet.
+ */
 public interface ClientRepository extends CrudRepository<Client, Long> {
     Client findById(long id);
-    List<Client> findAll();
     Optional<Client> findByMail(String mail);
+
+    /**
+     * @param id       id of the last client of the page before, 0 for the first page
+     * @param pageable only the size of the page is used
+     * @return clients sorted by id
+     */
+    List<Client> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    /**
+     * Reads the clients with a cursor, must be used in a transaction and closed,
+     * the clients, which are processed, should be detached, so they are not kept by the entity manager
+     *
+     * @return clients sorted by id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c from Client c order by c.id")
+    Stream<Client> streamAll();
 }
@@ -0,0 +1,10 @@
+package de.bord.festival.repository;
+
+import de.bord.festival.models.EventBuyer;
+import org.springframework.data.repository.CrudRepository;
+
+public interface EventBuyerRepository extends CrudRepository<EventBuyer, Long> {
+    boolean existsByEventIdAndClientId(long eventId, long clientId);
+
+    long countByEventId(long eventId);
+}
@@ -1,11 +1,131 @@
 package de.bord.festival.repository;
 
+import de.bord.festival.eventManagement.EventSummary;
 import de.bord.festival.models.Event;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+/**
+ * The events are read page by page after the id or the start date of the last event of the page before
+ * (see ClientRepository)
+ */
 public interface EventRepository extends CrudRepository<Event, Long> {
     Event findById(long id);
-    List<Event> findAll();
+
+    /**
+     * @param id       id of the last event of the page before, 0 for the first page
+     * @param pageable only the size of the page is used
+     * @return events sorted by id
+     */
+    List<Event> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    /**
+     * @param date     first day, on which the events may start
+     * @param id       id of the last event of the page before, 0 for the first page
+     * @param pageable only the size of the page is used
+     * @return ids of the events, which start on the date or later, sorted by id
+     */
+    @Query("select e.id from Event e join e.lineUp l where l.startDate >= ?1 and e.id > ?2 order by e.id")
+    List<Long> findIdsStartingFromGreaterThan(LocalDate date, long id, Pageable pageable);
+
+    /**
+     * Reads the event with everything, which the program page shows, in a few statements
+     * instead of one statement for every day, stage and time slot list
+     * The lists of the stages and of the bands are read one after another,
+     * hibernate can not fetch two lists in one statement. The event is the same object for all statements.
+     *
+     * @param id
+     * @return event with its stages, bands and programs, null if there is none
+     */
+    default Event findWithProgramById(long id) {
+        Event event = findWithStagesById(id);
+        if (event != null) {
+            findWithBandsById(id);
+            findWithDayProgramsById(id);
+        }
+        return event;
+    }
+
+    @Query("select distinct e from Event e join fetch e.lineUp l left join fetch l.stages "
+            + "join fetch e.ticketManager left join fetch e.address where e.id = ?1")
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    Event findWithStagesById(long id);
+
+    @Query("select distinct e from Event e join fetch e.lineUp l left join fetch l.bands where e.id = ?1")
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    Event findWithBandsById(long id);
+
+    /**
+     * the programs of the days with the time slots of every stage and their bands
+     */
+    @Query("select distinct e from Event e join fetch e.lineUp l left join fetch l.dayPrograms p "
+            + "left join fetch p.programsForStages s left join fetch s.timeSlots t left join fetch t.band where e.id = ?1")
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    Event findWithDayProgramsById(long id);
+
+    /**
+     * counts up in the database, so no purchase is lost, the loaded events are not changed
+     */
+    @Modifying
+    @Query("update Event e set e.numberOfBuyers = e.numberOfBuyers + 1 where e.id = ?1")
+    int incrementNumberOfBuyers(long eventId);
+
+    /**
+     * Reads the events with a cursor, must be used in a transaction and closed,
+     * the events, which are processed, should be detached, so they are not kept by the entity manager
+     *
+     * @return events sorted by id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    @Query("select e from Event e order by e.id")
+    Stream<Event> streamAll();
+
+    /**
+     * @param pageable only the size of the page is used
+     * @return summaries of the latest events, the latest event first
+     */
+    @Query("select new de.bord.festival.eventManagement.EventSummary(e.id, e.name, l.startDate, l.endDate, a.city, "
+            + "t.numberOfDayTicketsLeft + t.numberOfCampingTicketsLeft + t.numberOfVipTicketsLeft) "
+            + "from Event e join e.lineUp l join e.ticketManager t left join e.address a "
+            + "order by l.startDate desc, e.id desc")
+    List<EventSummary> findSummaries(Pageable pageable);
+
+    /**
+     * @param startDate start date of the last event of the page before
+     * @param id        id of the last event of the page before
+     * @param pageable  only the size of the page is used
+     * @return summaries of the events, which start before the last event of the page before, the latest event first
+     */
+    @Query("select new de.bord.festival.eventManagement.EventSummary(e.id, e.name, l.startDate, l.endDate, a.city, "
+            + "t.numberOfDayTicketsLeft + t.numberOfCampingTicketsLeft + t.numberOfVipTicketsLeft) "
+            + "from Event e join e.lineUp l join e.ticketManager t left join e.address a "
+            + "where l.startDate < ?1 or (l.startDate = ?1 and e.id < ?2) "
+            + "order by l.startDate desc, e.id desc")
+    List<EventSummary> findSummariesBefore(LocalDate startDate, long id, Pageable pageable);
+
+    /**
+     * @param startDate start date of the last event of the page before, null for the first page
+     * @param id        id of the last event of the page before, null for the first page
+     * @param size      number of summaries
+     * @return summaries of one page, the latest event first
+     */
+    default List<EventSummary> findPageOfSummaries(LocalDate startDate, Long id, int size) {
+        Pageable pageable = PageRequest.of(0, size);
+        if (startDate == null || id == null) {
+            return findSummaries(pageable);
+        }
+        return findSummariesBefore(startDate, id, pageable);
+    }
 }
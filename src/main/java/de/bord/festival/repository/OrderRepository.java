@@ -1,10 +1,36 @@
 package de.bord.festival.repository;
 
 import de.bord.festival.models.Order_;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * The orders are read page by page after the id of the last order of the page before (see ClientRepository)
+ */
 public interface OrderRepository extends CrudRepository<Order_, Long> {
-    List<Order_> findAll();
+
+    /**
+     * @param id       id of the last order of the page before, 0 for the first page
+     * @param pageable only the size of the page is used
+     * @return orders sorted by id
+     */
+    List<Order_> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    /**
+     * Reads the orders with a cursor, must be used in a transaction and closed,
+     * the orders, which are processed, should be detached, so they are not kept by the entity manager
+     *
+     * @return orders sorted by id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select o from Order_ o order by o.id")
+    Stream<Order_> streamAll();
 }
@@ -3,9 +3,18 @@ package de.bord.festival.repository;
 import de.bord.festival.models.PriceLevel;
 
 
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface PriceLevelRepository extends CrudRepository<PriceLevel, Long> {
 
+    /**
+     * the result is kept in the query cache, the price level itself in the second level cache
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     PriceLevel findById(long id);
 }
@@ -0,0 +1,12 @@
+package de.bord.festival.repository;
+
+import de.bord.festival.models.SaleRecord;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface SaleRecordRepository extends CrudRepository<SaleRecord, Long> {
+    List<SaleRecord> findByTicketManagerIdOrderById(long ticketManagerId);
+
+    List<SaleRecord> findByTicketManagerIdAndIdBetweenOrderById(long ticketManagerId, long fromId, long toId);
+}
@@ -1,8 +1,17 @@
 package de.bord.festival.repository;
 
 import de.bord.festival.models.Stage;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface StageRepository extends CrudRepository<Stage, Long> {
+    /**
+     * the result is kept in the query cache, the stage itself in the second level cache
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Stage findById(long id);
 }
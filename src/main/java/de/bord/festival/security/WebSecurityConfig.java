@@ -46,7 +46,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 .antMatchers("/", "/index", "/contact_details", "/register", "fragments/**", "/js/**", "/css/**", "/images/**", "/console/**").permitAll()
                 .antMatchers("/user_menu", "/buy_ticket_user", "/information_user", "/ticket_buy_error", "/ticket_buy_ok").hasRole("USER")
-                .antMatchers("/admin_menu", "/events", "/event_form", "/program").hasRole("ADMIN")
+                .antMatchers("/admin_menu", "/events", "/event_form", "/program", "/bands_add", "/actuator/metrics/**").hasRole("ADMIN")
 
                 .and()
                 .formLogin()
@@ -0,0 +1,60 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.models.EventBuyer;
+import de.bord.festival.repository.EventBuyerRepository;
+import de.bord.festival.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Knows, which clients bought tickets of an event
+ * <p>
+ * Every buyer is a row of event and client with a unique index (see EventBuyer),
+ * so a buyer is found without loading the event or its buyers.
+ * The number of buyers is kept in the event and is counted up in the same transaction, in which a buyer is added.
+ */
+@Service
+public class BuyerIndex {
+
+    private final EventBuyerRepository eventBuyerRepository;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BuyerIndex(EventBuyerRepository eventBuyerRepository, EventRepository eventRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.eventBuyerRepository = eventBuyerRepository;
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds the client to the buyers of the event, if the client is not a buyer yet
+     *
+     * @param eventId
+     * @param clientId
+     * @return true, if the client is a new buyer
+     */
+    public boolean addBuyer(long eventId, long clientId) {
+        try {
+            return transactionTemplate.execute(status -> {
+                if (eventBuyerRepository.existsByEventIdAndClientId(eventId, clientId)) {
+                    return false;
+                }
+                eventBuyerRepository.save(new EventBuyer(eventId, clientId));
+                eventRepository.incrementNumberOfBuyers(eventId);
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            //the client was added by another purchase at the same time
+            return false;
+        }
+    }
+
+    public boolean isBuyer(long eventId, long clientId) {
+        return eventBuyerRepository.existsByEventIdAndClientId(eventId, clientId);
+    }
+}
@@ -0,0 +1,412 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.models.SaleRecord;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.repository.SaleRecordRepository;
+import de.bord.festival.repository.TicketManagerRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only journal of all ticket sales
+ * <p>
+ * A checkout takes the tickets from the TicketManager, which is kept in memory by the journal,
+ * and writes a small SaleRecord in the transaction of the order of the client instead of saving
+ * the whole TicketManager. So the records are the source of truth of the tickets left and the income.
+ * <p>
+ * After the commit the record is appended here. A single writer thread collects the records
+ * for MAX_WAIT_IN_MILLIS or up to MAX_BATCH_SIZE records and folds them into the tickets left and
+ * the income of the persisted TicketManagers (group commit). Every TicketManager is updated once per group
+ * in its own transaction, so a version clash on one TicketManager does not stop the sales of the other events.
+ * <p>
+ * The persisted TicketManager keeps the id of the last record folded into it. A fold reads all records after this id,
+ * so it is simply tried again, if it fails, and the journal is replayed from this id, before a TicketManager is kept
+ * in memory, so sales, which were committed but not folded before a crash, are not lost.
+ * The records are committed in a different order than their ids are given out, so a record is folded only,
+ * when all records of the TicketManager with a lower id are committed or rolled back (see begin).
+ * <p>
+ * A change of the price level is saved in the persisted TicketManager first,
+ * the kept TicketManager takes the price level from the committed row.
+ */
+@Service
+public class SalesJournal {
+
+    public static final Logger LOG = LoggerFactory.getLogger(SalesJournal.class);
+
+    static final int MAX_BATCH_SIZE = 200;
+    static final long MAX_WAIT_IN_MILLIS = 5;
+    static final int MAX_ATTEMPTS = 3;
+
+    private final SaleRecordRepository saleRecordRepository;
+    private final TicketManagerRepository ticketManagerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final BlockingQueue<PendingSale> pendingSales = new LinkedBlockingQueue<>();
+    private final Map<Long, TicketManager> ticketManagers = new ConcurrentHashMap<>();
+    /**
+     * records, which are saved but not appended yet, per TicketManager
+     */
+    private final Map<Long, Set<SaleRecord>> recordsInFlight = new ConcurrentHashMap<>();
+    /**
+     * sales, whose records wait for a record with a lower id, only used by the writer thread
+     */
+    private final List<PendingSale> waitingSales = new ArrayList<>();
+    /**
+     * id of the last folded record per TicketManager
+     */
+    private final Map<Long, Long> lastFoldedIds = new ConcurrentHashMap<>();
+
+    private final AtomicLong numberOfRecords = new AtomicLong();
+    private final AtomicLong numberOfGroupCommits = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public SalesJournal(SaleRecordRepository saleRecordRepository, TicketManagerRepository ticketManagerRepository,
+                        PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        this.saleRecordRepository = saleRecordRepository;
+        this.ticketManagerRepository = ticketManagerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeRecords, "sales-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes the records, which are still waiting, and stops the writer thread
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+    }
+
+    /**
+     * The TicketManager is loaded once and kept in memory,
+     * all sales of this application take their tickets from this instance.
+     * It is loaded with an own entity manager, so it is not bound to the entity manager of a request.
+     * It is loaded outside of the map, so the transaction does not block other TicketManagers.
+     *
+     * @param ticketManagerId
+     * @return TicketManager, which sells the tickets
+     */
+    public TicketManager getTicketManager(long ticketManagerId) {
+        TicketManager ticketManager = ticketManagers.get(ticketManagerId);
+        if (ticketManager != null) {
+            return ticketManager;
+        }
+        ticketManager = loadDetachedTicketManager(ticketManagerId);
+        if (ticketManager == null) {
+            return null;
+        }
+        TicketManager loadedMeanwhile = ticketManagers.putIfAbsent(ticketManagerId, ticketManager);
+        return loadedMeanwhile != null ? loadedMeanwhile : ticketManager;
+    }
+
+    private TicketManager loadDetachedTicketManager(long ticketManagerId) {
+        RuntimeException failure = project(ticketManagerId);
+        if (failure != null) {
+            throw failure;
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            TicketManager ticketManager = entityManager.find(TicketManager.class, ticketManagerId);
+            if (ticketManager != null) {
+                Hibernate.initialize(ticketManager.getPriceLevels());
+            }
+            return ticketManager;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Registers the record, before it is saved. Until it is appended or given up,
+     * the records of the TicketManager with a higher id are not folded.
+     *
+     * @param sale
+     */
+    public void begin(SaleRecord sale) {
+        recordsInFlight.computeIfAbsent(sale.getTicketManagerId(), id -> ConcurrentHashMap.newKeySet()).add(sale);
+    }
+
+    /**
+     * Gives up the record, whose transaction was rolled back
+     *
+     * @param sale
+     */
+    public void abandon(SaleRecord sale) {
+        if (finish(sale) && running) {
+            //the records, which waited for it, are folded now
+            pendingSales.add(new PendingSale(sale.getTicketManagerId(), 0));
+        }
+    }
+
+    /**
+     * Appends the sale to the journal, it is called after the record is committed
+     *
+     * @param sale
+     * @return future, which is completed, when the sale is folded into the persisted TicketManager
+     */
+    public CompletableFuture<Void> append(SaleRecord sale) {
+        finish(sale);
+        PendingSale pendingSale = new PendingSale(sale.getTicketManagerId(), sale.getId());
+        if (!running) {
+            pendingSale.committed.completeExceptionally(new IllegalStateException("The sales journal is stopped"));
+        } else {
+            pendingSales.add(pendingSale);
+        }
+        return pendingSale.committed;
+    }
+
+    /**
+     * Changes the price level of the persisted TicketManager in its own transaction,
+     * after the commit the kept TicketManager takes the price level of the committed row.
+     * The change is tried again, if it clashes with the group commit of the sales.
+     * It is called in the lane of the TicketManager.
+     *
+     * @param ticketManagerId
+     * @param change          change of the price level, it is applied to the persisted TicketManager
+     * @return result of the change
+     * @throws Exception the exception of the change, the persisted TicketManager is not changed then
+     */
+    public <T> T changePriceLevel(long ticketManagerId, TicketManagerLanes.Change<T> change) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            List<T> result = new ArrayList<>(1);
+            TicketManager committedTicketManager;
+            try {
+                committedTicketManager = transactionTemplate.execute(status -> {
+                    TicketManager persistedTicketManager = ticketManagerRepository.findById(ticketManagerId);
+                    try {
+                        result.add(change.apply(persistedTicketManager));
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        //rolls the transaction back, the exception is thrown again below
+                        throw new UndeclaredThrowableException(e);
+                    }
+                    return ticketManagerRepository.save(persistedTicketManager);
+                });
+            } catch (UndeclaredThrowableException e) {
+                throw (Exception) e.getUndeclaredThrowable();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            getTicketManager(ticketManagerId).takePriceLevel(committedTicketManager);
+            return result.get(0);
+        }
+    }
+
+    /**
+     * Rebuilds the tickets left, the income and the price level of the TicketManager
+     * from all sales in the journal. It is called while no tickets of the TicketManager are sold.
+     *
+     * @param ticketManagerId
+     * @return the rebuilt TicketManager
+     */
+    public TicketManager replay(long ticketManagerId) {
+        TicketManager ticketManager = fold(ticketManagerId, true);
+        ticketManagers.remove(ticketManagerId);
+        return ticketManager;
+    }
+
+    /**
+     * Folds the committed records after the last folded record into the persisted TicketManager,
+     * up to the first record, which is not committed yet
+     *
+     * @param fromStart true, if the sales of the TicketManager are reset and all records are folded
+     * @return the TicketManager, null if there is none
+     */
+    private TicketManager fold(long ticketManagerId, boolean fromStart) {
+        //read before the records, a record saved later gets a higher id than the records committed so far
+        long lowestIdInFlight = getLowestIdInFlight(ticketManagerId);
+        return transactionTemplate.execute(status -> {
+            TicketManager persistedTicketManager = ticketManagerRepository.findById(ticketManagerId);
+            if (persistedTicketManager == null) {
+                return null;
+            }
+            if (fromStart) {
+                persistedTicketManager.resetSales();
+            }
+            List<SaleRecord> sales = saleRecordRepository.findByTicketManagerIdAndIdBetweenOrderById(ticketManagerId,
+                    persistedTicketManager.getLastSaleRecordId() + 1, lowestIdInFlight - 1);
+            if (sales.isEmpty() && !fromStart) {
+                return persistedTicketManager;
+            }
+            for (SaleRecord sale : sales) {
+                persistedTicketManager.applySaleRecord(sale);
+            }
+            TicketManager savedTicketManager = ticketManagerRepository.save(persistedTicketManager);
+            numberOfRecords.addAndGet(sales.size());
+            return savedTicketManager;
+        });
+    }
+
+    /**
+     * @return lowest id of the records of the TicketManager, which are not committed yet,
+     * 0 if a record has no id yet, Long.MAX_VALUE if there is none
+     */
+    private long getLowestIdInFlight(long ticketManagerId) {
+        long lowestId = Long.MAX_VALUE;
+        Set<SaleRecord> sales = recordsInFlight.get(ticketManagerId);
+        if (sales != null) {
+            for (SaleRecord sale : sales) {
+                lowestId = Math.min(lowestId, sale.getId());
+            }
+        }
+        return lowestId;
+    }
+
+    /**
+     * @return true, if the record was in flight
+     */
+    private boolean finish(SaleRecord sale) {
+        Set<SaleRecord> sales = recordsInFlight.get(sale.getTicketManagerId());
+        return sales != null && sales.remove(sale);
+    }
+
+    private void writeRecords() {
+        List<PendingSale> group = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !pendingSales.isEmpty()) {
+            try {
+                collectGroup(group);
+            } catch (InterruptedException e) {
+                //stopped, the records collected so far are written
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+        //sales appended while the journal was stopped
+        pendingSales.addAll(waitingSales);
+        for (PendingSale pendingSale : pendingSales) {
+            pendingSale.committed.completeExceptionally(new IllegalStateException("The sales journal is stopped"));
+        }
+    }
+
+    /**
+     * waits for the first record, then collects records up to MAX_WAIT_IN_MILLIS or MAX_BATCH_SIZE
+     */
+    private void collectGroup(List<PendingSale> group) throws InterruptedException {
+        PendingSale first = running ? pendingSales.take() : pendingSales.poll();
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_IN_MILLIS);
+        while (group.size() < MAX_BATCH_SIZE) {
+            PendingSale next = pendingSales.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    /**
+     * Folds the records of the group into the persisted TicketManagers, every TicketManager in its own transaction.
+     * The sales, whose records wait for a record with a lower id, are kept for the next group.
+     */
+    private void commit(List<PendingSale> group) {
+        Map<Long, List<PendingSale>> salesOfTicketManagers = new LinkedHashMap<>();
+        for (PendingSale pendingSale : group) {
+            salesOfTicketManagers.computeIfAbsent(pendingSale.ticketManagerId, id -> new ArrayList<>()).add(pendingSale);
+        }
+        for (PendingSale waitingSale : waitingSales) {
+            List<PendingSale> sales = salesOfTicketManagers.get(waitingSale.ticketManagerId);
+            if (sales != null) {
+                sales.add(waitingSale);
+            }
+        }
+        for (Map.Entry<Long, List<PendingSale>> salesOfTicketManager : salesOfTicketManagers.entrySet()) {
+            RuntimeException failure = project(salesOfTicketManager.getKey());
+            long lastSaleRecordId = failure == null ? lastFoldedIds.getOrDefault(salesOfTicketManager.getKey(), 0L) : 0;
+            for (PendingSale pendingSale : salesOfTicketManager.getValue()) {
+                waitingSales.remove(pendingSale);
+                if (failure != null) {
+                    pendingSale.committed.completeExceptionally(failure);
+                } else if (pendingSale.saleRecordId <= lastSaleRecordId) {
+                    pendingSale.committed.complete(null);
+                } else {
+                    waitingSales.add(pendingSale);
+                }
+            }
+        }
+        numberOfGroupCommits.incrementAndGet();
+    }
+
+    /**
+     * Folds the new records into the persisted TicketManager. The fold is tried again,
+     * if it fails, e.g. because the TicketManager was changed meanwhile.
+     *
+     * @return null, if the TicketManager is up to date, otherwise the exception
+     */
+    private RuntimeException project(long ticketManagerId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                TicketManager ticketManager = fold(ticketManagerId, false);
+                if (ticketManager != null) {
+                    lastFoldedIds.merge(ticketManagerId, ticketManager.getLastSaleRecordId(), Math::max);
+                }
+                return null;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    LOG.error("Sales of TicketManager " + ticketManagerId + " could not be folded, they are folded with its next sale", e);
+                    return e;
+                }
+                LOG.warn("Sales of TicketManager " + ticketManagerId + " could not be folded, it is tried again", e);
+            }
+        }
+    }
+
+    public long getNumberOfRecords() {
+        return numberOfRecords.get();
+    }
+
+    public long getNumberOfGroupCommits() {
+        return numberOfGroupCommits.get();
+    }
+
+    /**
+     * sale, which waits for the group commit
+     */
+    static class PendingSale {
+        final long ticketManagerId;
+        final long saleRecordId;
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        PendingSale(long ticketManagerId, long saleRecordId) {
+            this.ticketManagerId = ticketManagerId;
+            this.saleRecordId = saleRecordId;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.TicketNotAvailableException;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.SaleRecord;
+import de.bord.festival.repository.ClientRepository;
+import de.bord.festival.repository.SaleRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sells the cart of a client with optimistic locking
+ * <p>
+ * The tickets are taken from the TicketManager kept in memory by the SalesJournal
+ * in the lane of the TicketManager. Every attempt runs in its own transaction, which saves the client
+ * with the new order and the SaleRecord of the sale, the TicketManager is not saved.
+ * After the commit the record is appended to the journal and the checkout returns, the journal folds it
+ * into the persisted TicketManager a few milliseconds later with the group commit.
+ * The TicketManager row is not written by the checkout, so the only version clash left is on the client,
+ * e.g. if the same client buys the cart in two tabs at the same time or changes the cart meanwhile.
+ * Then the tickets are given back to the TicketManager, the attempt is rolled back together with its record
+ * and the client is loaded again after a short, growing pause. If the cart was bought meanwhile, it is empty
+ * and nothing is sold again.
+ * <p>
+ * The counters show the contention during on-sale bursts.
+ */
+@Service
+public class TicketCheckoutService {
+
+    static final int MAX_ATTEMPTS = 5;
+    static final long BASE_BACKOFF_IN_MILLIS = 10;
+
+    private final ClientRepository clientRepository;
+    private final SaleRecordRepository saleRecordRepository;
+    private final SalesJournal salesJournal;
+    private final TicketManagerLanes ticketManagerLanes;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong numberOfCheckouts = new AtomicLong();
+    private final AtomicLong numberOfConflicts = new AtomicLong();
+    private final AtomicLong numberOfRetries = new AtomicLong();
+    private final AtomicLong numberOfFailedCheckouts = new AtomicLong();
+
+    @Autowired
+    public TicketCheckoutService(ClientRepository clientRepository, SaleRecordRepository saleRecordRepository,
+                                 SalesJournal salesJournal, TicketManagerLanes ticketManagerLanes,
+                                 PlatformTransactionManager transactionManager) {
+        this.clientRepository = clientRepository;
+        this.saleRecordRepository = saleRecordRepository;
+        this.salesJournal = salesJournal;
+        this.ticketManagerLanes = ticketManagerLanes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Sells all tickets from the cart of the client
+     *
+     * @param clientId        client, who buys his cart
+     * @param ticketManagerId ticket manager of the event
+     * @throws TicketNotAvailableException if the tickets are not available or
+     *                                     the sale could not be saved after all attempts
+     */
+    public void checkout(long clientId, long ticketManagerId) throws TicketNotAvailableException {
+        numberOfCheckouts.incrementAndGet();
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                numberOfRetries.incrementAndGet();
+                backOff(attempt);
+            }
+            Sale sale = new Sale();
+            try {
+                TicketNotAvailableException notAvailable = transactionTemplate.execute(status -> {
+                    Client client = clientRepository.findById(clientId);
+                    if (client.getCartSize() == 0) {
+                        //bought by a concurrent checkout of the same client
+                        return null;
+                    }
+                    SaleRecord saleRecord = SaleRecord.ofCart(ticketManagerId, client);
+                    try {
+                        TicketManagerLanes.await(ticketManagerLanes.sellTickets(ticketManagerId, client));
+                    } catch (TicketNotAvailableException e) {
+                        status.setRollbackOnly();
+                        return e;
+                    }
+                    sale.record = saleRecord;
+                    clientRepository.save(client);
+                    //the record is committed together with the order
+                    salesJournal.begin(saleRecord);
+                    saleRecordRepository.save(saleRecord);
+                    return null;
+                });
+                if (notAvailable != null) {
+                    throw notAvailable;
+                }
+                if (sale.record == null) {
+                    return;
+                }
+                //the sale is committed, the journal folds it into the persisted TicketManager later
+                salesJournal.append(sale.record);
+                return;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                numberOfConflicts.incrementAndGet();
+                takeBack(ticketManagerId, sale);
+            } catch (RuntimeException e) {
+                takeBack(ticketManagerId, sale);
+                throw e;
+            }
+        }
+        numberOfFailedCheckouts.incrementAndGet();
+        throw new TicketNotAvailableException("The tickets could not be booked, please try again");
+    }
+
+    /**
+     * Gives the tickets of a sale, which was rolled back, back to the TicketManager.
+     * The record was rolled back with the order, so nothing is written to the journal.
+     */
+    private void takeBack(long ticketManagerId, Sale sale) {
+        if (sale.record != null) {
+            salesJournal.abandon(sale.record);
+            ticketManagerLanes.cancelSale(ticketManagerId, sale.record).join();
+        }
+    }
+
+    /**
+     * waits a random time up to BASE_BACKOFF_IN_MILLIS * 2^attempt, so the clashing checkouts spread out
+     */
+    private void backOff(int attempt) {
+        long maxPause = BASE_BACKOFF_IN_MILLIS << attempt;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxPause / 2, maxPause + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getNumberOfCheckouts() {
+        return numberOfCheckouts.get();
+    }
+
+    public long getNumberOfConflicts() {
+        return numberOfConflicts.get();
+    }
+
+    public long getNumberOfRetries() {
+        return numberOfRetries.get();
+    }
+
+    public long getNumberOfFailedCheckouts() {
+        return numberOfFailedCheckouts.get();
+    }
+
+    /**
+     * state of the sale of one attempt
+     */
+    private static class Sale {
+        SaleRecord record;
+    }
+}
@@ -0,0 +1,104 @@
+package de.bord.festival.ticket;
+
+import java.time.Duration;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ticket in a shopping cart, which is held in the ticket inventory for a short time
+ * <p>
+ * The hold ends exactly once: it is sold, or it is released when the cart is cleared
+ * or the hold has expired. During the sale the hold is claimed, so it can not expire meanwhile.
+ */
+public class TicketHold implements Delayed {
+
+    public static final Duration HOLD_DURATION = Duration.ofMinutes(10);
+
+    private static final int HELD = 0;
+    private static final int CLAIMED = 1;
+    private static final int SOLD = 2;
+    private static final int RELEASED = 3;
+
+    private final TicketInventory inventory;
+    private final Type type;
+    private final long expiresAtInNanos;
+    private final AtomicInteger state = new AtomicInteger(HELD);
+
+    public TicketHold(TicketInventory inventory, Type type, Duration holdDuration) {
+        this.inventory = inventory;
+        this.type = type;
+        this.expiresAtInNanos = System.nanoTime() + holdDuration.toNanos();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isHeldIn(TicketInventory inventory) {
+        return this.inventory == inventory;
+    }
+
+    /**
+     * Claims the hold for a sale, so it can not expire or be released meanwhile
+     *
+     * @return true, if the hold is still valid
+     */
+    public boolean claim() {
+        return state.compareAndSet(HELD, CLAIMED);
+    }
+
+    public boolean isClaimed() {
+        return state.get() == CLAIMED;
+    }
+
+    /**
+     * @return true, if the ticket was sold or given back
+     */
+    public boolean isFinished() {
+        int actualState = state.get();
+        return actualState == SOLD || actualState == RELEASED;
+    }
+
+    /**
+     * Gives a claimed hold back, if the sale failed
+     */
+    public void unclaim() {
+        state.compareAndSet(CLAIMED, HELD);
+    }
+
+    /**
+     * Sells the claimed ticket
+     */
+    public void sell() {
+        if (state.compareAndSet(CLAIMED, SOLD)) {
+            inventory.sellHeldTicket(type);
+        }
+    }
+
+    /**
+     * Gives the held ticket back to the inventory
+     *
+     * @return true, if the ticket was given back by this call
+     */
+    public boolean release() {
+        if (state.compareAndSet(HELD, RELEASED)) {
+            inventory.releaseHeldTicket(type);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtInNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof TicketHold) {
+            return Long.compare(expiresAtInNanos, ((TicketHold) other).expiresAtInNanos);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,98 @@
+package de.bord.festival.ticket;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases expired ticket holds in the background
+ * <p>
+ * The holds of the carts are registered by the TicketManagerLanes in a delay queue ordered by their expiry time,
+ * so the sweeper takes only the expired holds from the head of the queue in batches and never scans all carts.
+ * Holds, which were sold or released before, are dropped, when they reach the head of the queue,
+ * holds claimed by a running sale are checked again later.
+ */
+@Component
+public class TicketHoldSweeper {
+
+    static final int BATCH_SIZE = 500;
+
+    private final DelayQueue<RegisteredHold> holds = new DelayQueue<>();
+
+    public void register(TicketHold hold) {
+        register(hold, () -> {
+        });
+    }
+
+    /**
+     * @param hold
+     * @param onRelease called, after the sweeper has released the expired hold
+     */
+    public void register(TicketHold hold, Runnable onRelease) {
+        holds.add(new RegisteredHold(hold, onRelease));
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void sweep() {
+        sweepExpiredHolds();
+    }
+
+    /**
+     * Releases all expired holds
+     *
+     * @return number of tickets given back to the inventories
+     */
+    public int sweepExpiredHolds() {
+        int numberOfReleasedTickets = 0;
+        List<RegisteredHold> batch = new ArrayList<>(BATCH_SIZE);
+        List<RegisteredHold> claimedHolds = new ArrayList<>();
+        while (holds.drainTo(batch, BATCH_SIZE) > 0) {
+            for (RegisteredHold registeredHold : batch) {
+                if (registeredHold.hold.release()) {
+                    numberOfReleasedTickets++;
+                    registeredHold.onRelease.run();
+                } else if (registeredHold.hold.isClaimed()) {
+                    claimedHolds.add(registeredHold);
+                }
+            }
+            batch.clear();
+        }
+        holds.addAll(claimedHolds);
+        return numberOfReleasedTickets;
+    }
+
+    int getNumberOfHolds() {
+        return holds.size();
+    }
+
+    /**
+     * hold in the queue, it expires with the hold
+     */
+    private static class RegisteredHold implements Delayed {
+        final TicketHold hold;
+        final Runnable onRelease;
+
+        RegisteredHold(TicketHold hold, Runnable onRelease) {
+            this.hold = hold;
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return hold.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof RegisteredHold) {
+                return hold.compareTo(((RegisteredHold) other).hold);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
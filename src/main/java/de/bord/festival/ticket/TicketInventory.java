@@ -0,0 +1,149 @@
+package de.bord.festival.ticket;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock of the tickets left for every ticket type (DAY, CAMPING, VIP) of one TicketManager
+ * <p>
+ * The counters are changed only with compare-and-set, so concurrent sales can not oversell
+ * and no lock is needed. Numbers of tickets per type are given as int arrays,
+ * the index is the ordinal of the Type.
+ * <p>
+ * A cart is taken all-or-nothing: if one type is not available anymore,
+ * the tickets already taken of the other types are given back.
+ * <p>
+ * Tickets in a shopping cart are held: they are moved from the tickets left to the held tickets
+ * and are either sold or given back, when the hold expires.
+ * <p>
+ * The counters protect only the sales, which use the same instance. A TicketManager loaded by an entity manager
+ * has its own inventory, so the tickets are sold only from the TicketManager kept by the SalesJournal
+ * and changed in its lane (see TicketManagerLanes), which is the one instance per TicketManager in the application.
+ */
+public class TicketInventory {
+
+    private final AtomicIntegerArray ticketsLeft;
+    private final AtomicIntegerArray ticketsHeld;
+
+    public TicketInventory(int numberOfDayTicketsLeft, int numberOfCampingTicketsLeft, int numberOfVipTicketsLeft) {
+        ticketsLeft = new AtomicIntegerArray(Type.values().length);
+        ticketsLeft.set(Type.DAY.ordinal(), numberOfDayTicketsLeft);
+        ticketsLeft.set(Type.CAMPING.ordinal(), numberOfCampingTicketsLeft);
+        ticketsLeft.set(Type.VIP.ordinal(), numberOfVipTicketsLeft);
+        ticketsHeld = new AtomicIntegerArray(Type.values().length);
+    }
+
+    /**
+     * @return an empty array for the number of tickets per type
+     */
+    public static int[] emptyCart() {
+        return new int[Type.values().length];
+    }
+
+    public int getTicketsLeft(Type type) {
+        return ticketsLeft.get(type.ordinal());
+    }
+
+    public int getTicketsHeld(Type type) {
+        return ticketsHeld.get(type.ordinal());
+    }
+
+    /**
+     * @return tickets left and held tickets, they are not sold yet
+     */
+    public int getTicketsNotSold(Type type) {
+        return getTicketsLeft(type) + getTicketsHeld(type);
+    }
+
+    public boolean isAvailable(Type type, int numberOfTickets) {
+        return getTicketsLeft(type) - numberOfTickets >= 0;
+    }
+
+    /**
+     * Takes the given number of tickets of every type all-or-nothing
+     *
+     * @param numberOfTicketsPerType number of tickets, index is the ordinal of the type
+     * @return null, if all tickets are taken, otherwise the type which is not available anymore
+     */
+    public Type takeTickets(int[] numberOfTicketsPerType) {
+        Type[] types = Type.values();
+        for (int i = 0; i < types.length; i++) {
+            if (!takeTickets(i, numberOfTicketsPerType[i])) {
+                //give back the types taken before
+                for (int j = 0; j < i; j++) {
+                    ticketsLeft.addAndGet(j, numberOfTicketsPerType[j]);
+                }
+                return types[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives back tickets which were taken, e.g. if the sale could not be saved
+     *
+     * @param numberOfTicketsPerType number of tickets, index is the ordinal of the type
+     */
+    public void giveBackTickets(int[] numberOfTicketsPerType) {
+        for (int i = 0; i < numberOfTicketsPerType.length; i++) {
+            if (numberOfTicketsPerType[i] != 0) {
+                ticketsLeft.addAndGet(i, numberOfTicketsPerType[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes sold tickets without checking the stock,
+     * used to fold sales into the stock, which were already checked before
+     *
+     * @param numberOfTicketsPerType number of tickets, index is the ordinal of the type
+     */
+    public void removeTickets(int[] numberOfTicketsPerType) {
+        for (int i = 0; i < numberOfTicketsPerType.length; i++) {
+            if (numberOfTicketsPerType[i] != 0) {
+                ticketsLeft.addAndGet(i, -numberOfTicketsPerType[i]);
+            }
+        }
+    }
+
+    /**
+     * Moves one ticket from the tickets left to the held tickets
+     *
+     * @return true, if a ticket of the type was available
+     */
+    public boolean holdTicket(Type type) {
+        if (!takeTickets(type.ordinal(), 1)) {
+            return false;
+        }
+        ticketsHeld.incrementAndGet(type.ordinal());
+        return true;
+    }
+
+    /**
+     * Gives a held ticket back to the tickets left
+     */
+    public void releaseHeldTicket(Type type) {
+        ticketsHeld.decrementAndGet(type.ordinal());
+        ticketsLeft.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * Sells a held ticket, it is not counted anymore
+     */
+    public void sellHeldTicket(Type type) {
+        ticketsHeld.decrementAndGet(type.ordinal());
+    }
+
+    private boolean takeTickets(int index, int numberOfTickets) {
+        if (numberOfTickets == 0) {
+            return true;
+        }
+        int left;
+        do {
+            left = ticketsLeft.get(index);
+            if (left - numberOfTickets < 0) {
+                return false;
+            }
+        } while (!ticketsLeft.compareAndSet(index, left, left - numberOfTickets));
+        return true;
+    }
+}
@@ -0,0 +1,277 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.TicketNotAvailableException;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.SaleRecord;
+import de.bord.festival.models.TicketManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Runs all changes of the TicketManagers kept by the SalesJournal in single-writer lanes
+ * <p>
+ * Every TicketManager is pinned to one lane, a lane is a single thread.
+ * So the changes of one event (carts, sales, price level and descriptions) never run at the same time
+ * and need no lock, while the events of different lanes run in parallel on all cores.
+ * Every call returns a CompletableFuture with the result of the change.
+ * <p>
+ * A client is loaded again for every request, so the holds of the cart tickets
+ * are kept per client in the lane and given to the client, when the cart is sold or cleared.
+ * The holds released by the TicketHoldSweeper are removed from the lane, so abandoned carts do not stay here.
+ */
+@Service
+public class TicketManagerLanes {
+
+    private final SalesJournal salesJournal;
+    private final TicketHoldSweeper ticketHoldSweeper;
+    private final ExecutorService[] lanes;
+
+    /**
+     * holds of the carts per TicketManager and client, the inner map is used only by the lane of the TicketManager
+     */
+    private final Map<Long, Map<Long, List<TicketHold>>> holdsOfClients = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TicketManagerLanes(SalesJournal salesJournal, TicketHoldSweeper ticketHoldSweeper) {
+        this(salesJournal, ticketHoldSweeper, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TicketManagerLanes(SalesJournal salesJournal, TicketHoldSweeper ticketHoldSweeper, int numberOfLanes) {
+        this.salesJournal = salesJournal;
+        this.ticketHoldSweeper = ticketHoldSweeper;
+        this.lanes = new ExecutorService[numberOfLanes];
+        for (int i = 0; i < numberOfLanes; i++) {
+            String name = "ticket-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread lane = new Thread(runnable, name);
+                lane.setDaemon(true);
+                return lane;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Runs the change in the lane of the TicketManager
+     *
+     * @param ticketManagerId
+     * @param change
+     * @return result of the change, it is completed exceptionally, if the change throws an exception
+     */
+    public <T> CompletableFuture<T> submit(long ticketManagerId, Change<T> change) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        getLane(ticketManagerId).execute(() -> {
+            try {
+                result.complete(change.apply(salesJournal.getTicketManager(ticketManagerId)));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Adds a ticket to the cart of the client, the ticket is held for the client,
+     * until it is sold or the TicketHoldSweeper releases the expired hold
+     *
+     * @return hold of the ticket, it is given back with releaseHold, if the cart could not be saved
+     */
+    public CompletableFuture<TicketHold> addTicket(long ticketManagerId, Client client, Type type) {
+        return submit(ticketManagerId, ticketManager -> {
+            client.addTicket(type, ticketManager);
+            long clientId = client.getId();
+            TicketHold newHold = null;
+            for (TicketHold hold : client.getHolds()) {
+                ticketHoldSweeper.register(hold, () -> removeReleasedHolds(ticketManagerId, clientId));
+                newHold = hold;
+            }
+            keepHolds(ticketManagerId, client);
+            return newHold;
+        });
+    }
+
+    /**
+     * Gives the held ticket back, e.g. if the cart with the ticket could not be saved
+     */
+    public CompletableFuture<Void> releaseHold(long ticketManagerId, long clientId, TicketHold hold) {
+        return submit(ticketManagerId, ticketManager -> {
+            hold.release();
+            removeFinishedHolds(ticketManagerId, clientId);
+            return null;
+        });
+    }
+
+    /**
+     * Sells the cart of the client, the held tickets of the cart are sold first
+     */
+    public CompletableFuture<Void> sellTickets(long ticketManagerId, Client client) {
+        return submit(ticketManagerId, ticketManager -> {
+            takeHolds(ticketManagerId, client);
+            try {
+                ticketManager.sellTickets(client);
+            } finally {
+                //the holds are still valid, if the sale has failed
+                keepHolds(ticketManagerId, client);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Clears the cart of the client and gives the held tickets back
+     */
+    public CompletableFuture<Void> clearCart(long ticketManagerId, Client client) {
+        return submit(ticketManagerId, ticketManager -> {
+            takeHolds(ticketManagerId, client);
+            client.clearCart();
+            return null;
+        });
+    }
+
+    /**
+     * Gives a sale back, which could not be saved
+     */
+    public CompletableFuture<Void> cancelSale(long ticketManagerId, SaleRecord sale) {
+        return submit(ticketManagerId, ticketManager -> {
+            ticketManager.cancelSale(sale);
+            return null;
+        });
+    }
+
+    /**
+     * Sets the price level of the persisted TicketManager,
+     * the TicketManager, which sells the tickets, takes it after the commit
+     *
+     * @return whether the change was successful
+     */
+    public CompletableFuture<Boolean> setPriceLevel(long ticketManagerId, int index) {
+        return submit(ticketManagerId, ticketManager -> salesJournal.changePriceLevel(ticketManagerId,
+                persistedTicketManager -> persistedTicketManager.setPriceLevel(index)));
+    }
+
+    /**
+     * Sets the automatic price level change of the persisted TicketManager,
+     * the TicketManager, which sells the tickets, takes it after the commit
+     */
+    public CompletableFuture<Void> setAutomaticPriceLevelChange(long ticketManagerId, boolean isPriceLevelChangeAutomatic) {
+        return submit(ticketManagerId, ticketManager -> salesJournal.changePriceLevel(ticketManagerId,
+                persistedTicketManager -> {
+                    persistedTicketManager.setAutomaticPriceLevelChange(isPriceLevelChangeAutomatic);
+                    return null;
+                }));
+    }
+
+    /**
+     * Takes the ticket descriptions of the changed TicketManager
+     */
+    public CompletableFuture<Void> updateTicketDescriptions(long ticketManagerId, TicketManager changedTicketManager) {
+        return submit(ticketManagerId, ticketManager -> {
+            ticketManager.update(changedTicketManager);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the result of a change
+     *
+     * @param change
+     * @return result of the change
+     * @throws TicketNotAvailableException if the change has thrown it
+     */
+    public static <T> T await(CompletableFuture<T> change) throws TicketNotAvailableException {
+        try {
+            return change.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TicketNotAvailableException) {
+                throw (TicketNotAvailableException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private ExecutorService getLane(long ticketManagerId) {
+        return lanes[(int) Long.remainderUnsigned(ticketManagerId, lanes.length)];
+    }
+
+    /**
+     * moves the holds of the client instance into the lane
+     */
+    private void keepHolds(long ticketManagerId, Client client) {
+        if (client.getHolds().isEmpty()) {
+            return;
+        }
+        getHoldsOfClients(ticketManagerId)
+                .computeIfAbsent(client.getId(), clientId -> new LinkedList<>())
+                .addAll(client.getHolds());
+        client.getHolds().clear();
+    }
+
+    /**
+     * gives the holds kept in the lane to the client instance
+     */
+    private void takeHolds(long ticketManagerId, Client client) {
+        List<TicketHold> holds = getHoldsOfClients(ticketManagerId).remove(client.getId());
+        if (holds != null) {
+            client.getHolds().addAll(holds);
+        }
+    }
+
+    /**
+     * removes the holds released by the sweeper in the lane of the TicketManager
+     */
+    private void removeReleasedHolds(long ticketManagerId, long clientId) {
+        try {
+            getLane(ticketManagerId).execute(() -> removeFinishedHolds(ticketManagerId, clientId));
+        } catch (RejectedExecutionException e) {
+            //the lanes are stopped
+        }
+    }
+
+    /**
+     * removes the sold and released holds of the client kept in the lane, the client is removed without holds
+     */
+    private void removeFinishedHolds(long ticketManagerId, long clientId) {
+        Map<Long, List<TicketHold>> holdsOfClients = getHoldsOfClients(ticketManagerId);
+        List<TicketHold> holds = holdsOfClients.get(clientId);
+        if (holds != null) {
+            holds.removeIf(TicketHold::isFinished);
+            if (holds.isEmpty()) {
+                holdsOfClients.remove(clientId);
+            }
+        }
+    }
+
+    /**
+     * @return number of clients with holds kept in the lane of the TicketManager
+     */
+    int getNumberOfClientsWithHolds(long ticketManagerId) {
+        return submit(ticketManagerId, ticketManager -> getHoldsOfClients(ticketManagerId).size()).join();
+    }
+
+    private Map<Long, List<TicketHold>> getHoldsOfClients(long ticketManagerId) {
+        return holdsOfClients.computeIfAbsent(ticketManagerId, id -> new HashMap<>());
+    }
+
+    /**
+     * change of a TicketManager, which runs in its lane
+     */
+    @FunctionalInterface
+    public interface Change<T> {
+        T apply(TicketManager ticketManager) throws Exception;
+    }
+}
@@ -0,0 +1,137 @@
+package de.bord.festival.controllers;
+
+import de.bord.festival.controllers.dataContainers.TicketCounter;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.Role;
+import de.bord.festival.repository.ClientRepository;
+import de.bord.festival.repository.EventRepository;
+import de.bord.festival.repository.SaleRecordRepository;
+import de.bord.festival.security.ClientDetails;
+import de.bord.festival.ticket.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Load test for the purchase flow: many users fill their carts at the same time
+ * and every user sees only their own cart, whatever the number of worker threads is
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+public class TicketControllerTest {
+
+    static final int NUMBER_OF_USERS = 40;
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ClientRepository clientRepository;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    SaleRecordRepository saleRecordRepository;
+
+    HelpClasses helper = new HelpClasses();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    void should_keep_carts_of_concurrent_users_apart(int numberOfWorkerThreads) throws Exception {
+        // given ( held tickets count for all requests, so the event needs enough tickets )
+        Event event = eventRepository.save(exampleEventWith1000Tickets());
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            clients.add(clientRepository.save(Client.getNewClient("Load", "User",
+                    "user" + numberOfWorkerThreads + "x" + i + "@test.de", "pass", helper.getAddress(), Role.USER)));
+        }
+
+        // when every user adds 1 to 5 tickets one after another, all users at the same time
+        ExecutorService workers = Executors.newFixedThreadPool(numberOfWorkerThreads);
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            ClientDetails clientDetails = new ClientDetails(clients.get(i));
+            int numberOfTickets = 1 + i % 5;
+            requests.add(workers.submit(() -> {
+                for (int j = 0; j < numberOfTickets; j++) {
+                    mockMvc.perform(post("/addToBasket").with(user(clientDetails)).with(csrf())
+                            .param("ticketType", Type.CAMPING.name())
+                            .param("eventId", String.valueOf(event.getId())))
+                            .andExpect(status().is3xxRedirection());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        workers.shutdown();
+
+        // then
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            TicketCounter ticketCounter = (TicketCounter) mockMvc.perform(get("/buy_ticket_user")
+                    .with(user(new ClientDetails(clients.get(i))))
+                    .param("eventId", String.valueOf(event.getId())))
+                    .andExpect(status().isOk())
+                    .andReturn().getModelAndView().getModel().get("ticketCounter");
+
+            assertEquals(1 + i % 5, ticketCounter.getCampingTicketCounter());
+            assertEquals(0, ticketCounter.getDayTicketCounter());
+        }
+    }
+
+    @Test
+    void should_record_the_sale_in_the_journal_and_the_ticket_manager() throws Exception {
+        // given
+        Event event = eventRepository.save(helper.getValidNDaysEvent(1));
+        Client client = clientRepository.save(Client.getNewClient("Journal", "User",
+                "journal@test.de", "pass", helper.getAddress(), Role.USER));
+        ClientDetails clientDetails = new ClientDetails(client);
+        for (Type type : Type.values()) {
+            mockMvc.perform(post("/addToBasket").with(user(clientDetails)).with(csrf())
+                    .param("ticketType", type.name())
+                    .param("eventId", String.valueOf(event.getId())));
+        }
+
+        // when
+        mockMvc.perform(post("/buy_ticket").with(user(clientDetails)).with(csrf())
+                .param("eventId", String.valueOf(event.getId())))
+                .andExpect(redirectedUrl("/ticket_buy_ok?eventId=" + event.getId()));
+
+        // then
+        long ticketManagerId = event.getTicketManager().getId();
+        assertEquals(1, saleRecordRepository.findByTicketManagerIdOrderById(ticketManagerId).size());
+        assertEquals(3, eventRepository.findById(event.getId()).getTicketManager().totalNumberOfSoldTickets());
+        assertEquals(3, clientRepository.findById(client.getId()).getInventorySize());
+        assertEquals(1, eventRepository.findById(event.getId()).getNumberOfBuyers());
+    }
+
+    private Event exampleEventWith1000Tickets() throws Exception {
+        return Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 30, LocalDate.of(2018, 1, 1),
+                LocalDate.of(2018, 1, 1), "Weinfest", BigDecimal.valueOf(2019),
+                helper.getStage(), helper.exampleTicketManager(1000, 1000, 1000), helper.getAddress());
+    }
+}
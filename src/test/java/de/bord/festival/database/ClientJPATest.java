@@ -0,0 +1,99 @@
+package de.bord.festival.database;
+
+import de.bord.festival.models.Client;
+import de.bord.festival.repository.ClientRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads many clients page by page and as a stream, the clients are written by sql, so the test is fast
+ */
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ClientJPATest {
+
+    static final int PAGE_SIZE = 1000;
+
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    ClientRepository clientRepository;
+
+    @Test
+    @Tag("slow")
+    void should_read_1_million_clients_page_by_page_in_constant_memory() {
+        // given
+        insertClients(1_000_000);
+        long usedMemoryAfterFirstPages = 0;
+        int numberOfClients = 0;
+        long lastId = 0;
+
+        // when
+        List<Client> page = clientRepository.findByIdGreaterThanOrderById(lastId, PageRequest.of(0, PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (Client client : page) {
+                assertTrue(client.getId() > lastId);
+                lastId = client.getId();
+            }
+            numberOfClients += page.size();
+            // the clients of the page before are not kept
+            entityManager.clear();
+            if (numberOfClients == 10 * PAGE_SIZE) {
+                usedMemoryAfterFirstPages = getUsedMemory();
+            }
+            page = clientRepository.findByIdGreaterThanOrderById(lastId, PageRequest.of(0, PAGE_SIZE));
+        }
+
+        // then
+        assertEquals(1_000_000, numberOfClients);
+        assertTrue(getUsedMemory() - usedMemoryAfterFirstPages < 32 * 1024 * 1024);
+    }
+
+    @Test
+    void should_stream_the_clients_sorted_by_id() {
+        // given
+        insertClients(10_000);
+        int numberOfClients = 0;
+        long lastId = 0;
+
+        // when
+        try (Stream<Client> clients = clientRepository.streamAll()) {
+            Iterator<Client> iterator = clients.iterator();
+            while (iterator.hasNext()) {
+                Client client = iterator.next();
+                // then
+                assertTrue(client.getId() > lastId);
+                lastId = client.getId();
+                numberOfClients++;
+                entityManager.detach(client);
+            }
+        }
+        assertEquals(10_000, numberOfClients);
+    }
+
+    private void insertClients(int numberOfClients) {
+        entityManager.getEntityManager().createNativeQuery("insert into client "
+                + "(id, version, firstname, lastname, mail, role, expenditure, expenditure_basket) "
+                + "select x, 0, 'Example', 'Client', concat('client', x, '@gmail.com'), 0, 0, 0 "
+                + "from system_range(1, ?1)")
+                .setParameter(1, numberOfClients)
+                .executeUpdate();
+    }
+
+    private long getUsedMemory() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,103 @@
+package de.bord.festival.database;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.Event;
+import de.bord.festival.repository.EventBuyerRepository;
+import de.bord.festival.repository.EventRepository;
+import de.bord.festival.ticket.BuyerIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The buyers of an event are kept in their own table, loading the event does not load them
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class EventBuyerJPATest {
+
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    EventBuyerRepository eventBuyerRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    HelpClasses helper;
+    BuyerIndex buyerIndex;
+    Event event;
+
+    @BeforeEach
+    void initialize() throws DateDisorderException, PriceLevelException, TimeDisorderException {
+        helper = new HelpClasses();
+        buyerIndex = new BuyerIndex(eventBuyerRepository, eventRepository, transactionManager);
+        event = eventRepository.save(helper.getValidNDaysEvent(1));
+    }
+
+    @Test
+    void should_add_a_client_only_once() throws MailException, ClientNameException {
+        // given
+        Client client = entityManager.persist(helper.exampleClient());
+
+        // when
+        boolean isAddedFirst = buyerIndex.addBuyer(event.getId(), client.getId());
+        boolean isAddedSecond = buyerIndex.addBuyer(event.getId(), client.getId());
+
+        // then
+        assertTrue(isAddedFirst);
+        assertFalse(isAddedSecond);
+        assertTrue(buyerIndex.isBuyer(event.getId(), client.getId()));
+        assertEquals(1, eventBuyerRepository.countByEventId(event.getId()));
+        entityManager.clear();
+        assertEquals(1, eventRepository.findById(event.getId()).getNumberOfBuyers());
+    }
+
+    @Test
+    void should_not_load_the_buyers_with_the_event() throws MailException, ClientNameException {
+        // given 100 buyers
+        for (int i = 0; i < 100; i++) {
+            Client client = entityManager.persist(helper.exampleClient());
+            buyerIndex.addBuyer(event.getId(), client.getId());
+        }
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        Event databaseEvent = eventRepository.findById(event.getId());
+
+        // then
+        assertEquals(100, databaseEvent.getNumberOfBuyers());
+        assertEquals(0, statistics.getEntityStatistics(Client.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void should_keep_the_number_of_buyers_when_the_event_is_saved() throws MailException, ClientNameException {
+        // given the event is loaded before the client buys
+        Client client = entityManager.persist(helper.exampleClient());
+        Event loadedEvent = eventRepository.findById(event.getId());
+        buyerIndex.addBuyer(event.getId(), client.getId());
+
+        // when
+        loadedEvent.setName("Sommerfest");
+        eventRepository.save(loadedEvent);
+        entityManager.flush();
+        entityManager.clear();
+
+        // then
+        assertEquals(1, eventRepository.findById(event.getId()).getNumberOfBuyers());
+    }
+}
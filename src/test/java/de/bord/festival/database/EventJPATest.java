@@ -1,5 +1,6 @@
 package de.bord.festival.database;
 
+import de.bord.festival.eventManagement.EventSummary;
 import de.bord.festival.helper.HelpClasses;
 import de.bord.festival.exception.*;
 import de.bord.festival.models.Band;
@@ -15,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -48,7 +50,7 @@ public class EventJPATest {
         Event databaseEvent = eventRepository.save(this.event);
         //then
         assertEquals("Weinfest", databaseEvent.getName());
-        assertEquals(BigDecimal.valueOf(2019), databaseEvent.getBudget());
+        assertEquals(new BigDecimal("2019.00"), databaseEvent.getBudget());
         assertEquals("Germany", databaseEvent.getAddress().getCountry());
         assertEquals("Berlin", databaseEvent.getAddress().getCity());
         assertEquals("Nordwez 1", databaseEvent.getAddress().getStreet());
@@ -77,7 +79,7 @@ public class EventJPATest {
         //then
 
         assertEquals("Weinfest", databaseEvent.getName());
-        assertEquals(BigDecimal.valueOf(2019), databaseEvent.getBudget());
+        assertEquals(new BigDecimal("2019.00"), databaseEvent.getBudget());
         assertEquals(LocalTime.of(10, 30), databaseEvent.getStartTime());
         assertEquals(LocalTime.of(23, 59), databaseEvent.getEndTime());
 
@@ -103,7 +105,7 @@ public class EventJPATest {
         databaseEvent = eventRepository.save(event);
         //then
         assertEquals("Weinfest", databaseEvent.getName());
-        assertEquals(BigDecimal.valueOf(2019), databaseEvent.getBudget());
+        assertEquals(new BigDecimal("2019.00"), databaseEvent.getBudget());
         assertEquals(LocalTime.of(10, 30), databaseEvent.getStartTime());
         assertEquals(LocalTime.of(23, 59), databaseEvent.getEndTime());
 
@@ -177,4 +179,29 @@ public class EventJPATest {
         assertEquals(eventInfo.getTime(), databaseEventInfo.getTime());
         assertEquals(eventInfo.getStage(), databaseEventInfo.getStage());
     }
+
+    @Test
+    void should_read_the_summaries_page_by_page_with_the_latest_event_first() throws DateDisorderException, PriceLevelException, TimeDisorderException {
+        //given events in 2018, 2020 and 2025
+        eventRepository.save(this.event);
+        eventRepository.save(helper.getValidNDaysEvent1(1));
+        Event latestEvent = eventRepository.save(helper.getValidNDaysEvent2(1));
+
+        //when
+        List<EventSummary> firstPage = eventRepository.findPageOfSummaries(null, null, 2);
+        EventSummary lastOfFirstPage = firstPage.get(1);
+        List<EventSummary> secondPage = eventRepository.findPageOfSummaries(lastOfFirstPage.getStartDate(), lastOfFirstPage.getId(), 2);
+
+        //then
+        assertEquals(2, firstPage.size());
+        EventSummary summary = firstPage.get(0);
+        assertEquals(latestEvent.getId(), summary.getId());
+        assertEquals("Bord", summary.getName());
+        assertEquals(LocalDate.of(2025, 1, 1), summary.getStartDate());
+        assertEquals("Berlin", summary.getCity());
+        assertEquals(latestEvent.getTicketManager().totalNumberOfTicketsLeft(), summary.getNumberOfTicketsLeft());
+        assertEquals("Sommerfest", lastOfFirstPage.getName());
+        assertEquals(1, secondPage.size());
+        assertEquals("Weinfest", secondPage.get(0).getName());
+    }
 }
@@ -4,15 +4,27 @@ import de.bord.festival.helper.HelpClasses;
 import de.bord.festival.exception.DateDisorderException;
 import de.bord.festival.exception.PriceLevelException;
 import de.bord.festival.exception.TimeDisorderException;
+import de.bord.festival.exception.TimeSlotCantBeFoundException;
+import de.bord.festival.models.Band;
 import de.bord.festival.models.LineUp;
+import de.bord.festival.models.TimeSlot;
+import de.bord.festival.models.TimeSlotList;
+import de.bord.festival.eventManagement.BandBooking;
+import de.bord.festival.repository.BandRepository;
 import de.bord.festival.repository.LineUpRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -21,6 +33,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class LineUpJPATest {
     @Autowired
     LineUpRepository lineUpRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    BandRepository bandRepository;
     HelpClasses helper;
     LineUp lineUp;
     @BeforeEach
@@ -39,4 +55,80 @@ public class LineUpJPATest {
 
     }
 
+    @Test
+    void should_read_time_slots_sorted_by_time() throws TimeSlotCantBeFoundException {
+        //given the gap of a removed band is used again, so the new time slot is saved after the others
+        lineUp.addBand(helper.getBand("band1", 60, 60));
+        Band band2 = helper.getBand("band2", 60, 60);
+        lineUp.addBand(band2);
+        lineUp.addBand(helper.getBand("band3", 60, 60));
+        lineUp.removeBand(band2, LocalDateTime.of(2020, 10, 10, 12, 0));
+        lineUp.addBand(helper.getBand("band4", 60, 60));
+        long id = lineUpRepository.save(lineUp).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        LineUp lineUpDatabase = lineUpRepository.findById(id).get();
+
+        //then
+        TimeSlotList timeSlotList = lineUpDatabase.getDayPrograms().get(LocalDate.of(2020, 10, 10))
+                .getProgramsForStages().values().iterator().next();
+        List<LocalTime> times = timeSlotList.getTimeSlots().stream().map(TimeSlot::getTime).collect(Collectors.toList());
+        assertEquals(Arrays.asList(LocalTime.of(10, 30), LocalTime.of(12, 0), LocalTime.of(13, 30)), times);
+    }
+
+    @Test
+    void should_save_only_the_programs_of_days_with_bands() throws TimeSlotCantBeFoundException {
+        //given 2 days, a band plays on the first day
+        lineUp.addBand(helper.getBand("band1", 60, 60));
+
+        //when
+        lineUpRepository.save(lineUp);
+        entityManager.flush();
+
+        //then
+        long numberOfPrograms = entityManager.getEntityManager()
+                .createQuery("select count(p) from Program p", Long.class).getSingleResult();
+        assertEquals(1, numberOfPrograms);
+    }
+
+    @Test
+    void should_find_the_plays_of_the_bands_from_a_date() throws TimeSlotCantBeFoundException {
+        //given a band, which plays 60 minutes on both days
+        Band band = helper.getBand("band1", 60, 60);
+        band.addEventInfo(lineUp.addBand(band));
+        lineUp.addBand(helper.getBand("band2", 60, 700));
+        band.addEventInfo(lineUp.addBand(band));
+        lineUpRepository.save(lineUp);
+        entityManager.flush();
+
+        //when
+        List<BandBooking> bookings = bandRepository.findBookingsFrom(LocalDate.of(2020, 10, 11));
+
+        //then
+        assertEquals(1, bookings.size());
+        assertEquals("band1", bookings.get(0).getNameOfBand());
+        assertEquals(LocalDateTime.of(2020, 10, 11, 10, 30), bookings.get(0).getStart());
+        assertEquals(60, bookings.get(0).getMinutesOnStage());
+    }
+
+    @Test
+    void should_find_only_the_plays_of_the_given_bands() throws TimeSlotCantBeFoundException {
+        //given two bands, which play on the first day
+        Band band1 = helper.getBand("band1", 60, 60);
+        band1.addEventInfo(lineUp.addBand(band1));
+        Band band2 = helper.getBand("band2", 60, 60);
+        band2.addEventInfo(lineUp.addBand(band2));
+        lineUpRepository.save(lineUp);
+        entityManager.flush();
+
+        //when
+        List<BandBooking> bookings = bandRepository.findBookingsOfBandsFrom(Arrays.asList("band2"), LocalDate.of(2020, 10, 10));
+
+        //then
+        assertEquals(1, bookings.size());
+        assertEquals("band2", bookings.get(0).getNameOfBand());
+        assertEquals(LocalDateTime.of(2020, 10, 10, 12, 0), bookings.get(0).getStart());
+    }
 }
@@ -0,0 +1,76 @@
+package de.bord.festival.database;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.ticket.Type;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the sql statements of a ticket sale with the hibernate statistics
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class OrderJPATest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    void should_need_only_a_handful_of_inserts_for_a_cart_with_10_tickets() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        // given a cart with 4 day-, 3 camping- and 3 VIP-tickets
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.exampleTicketManager();
+        Client client = helpClasses.exampleClient();
+        for (int i = 0; i < 10; i++) {
+            client.addTicket(Type.values()[i % 3], ticketManager);
+        }
+        entityManager.persist(ticketManager);
+        entityManager.persist(client);
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        ticketManager.sellTickets(client);
+        entityManager.flush();
+
+        // then 1 order with 3 lines is inserted instead of a row for every ticket in 3 join tables
+        assertEquals(4, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 9);
+        assertEquals(3, client.getOrders_().get(0).getOrderLines().size());
+        assertEquals(4, client.getOrders_().get(0).getNumberOfTickets(Type.DAY));
+        assertEquals(3, client.getOrders_().get(0).getNumberOfTickets(Type.VIP));
+        assertEquals(3, client.getOrders_().get(0).getNumberOfTickets(Type.CAMPING));
+    }
+
+    @Test
+    void should_return_2_order_lines_for_day_tickets_with_2_prices() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        // given
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.exampleTicketManager();
+        Client client = helpClasses.exampleClient();
+        client.addTicket(Type.DAY, ticketManager);
+        ticketManager.setTicketStdPrice(99.99, Type.DAY);
+        client.addTicket(Type.DAY, ticketManager);
+        client.addTicket(Type.DAY, ticketManager);
+
+        // when
+        ticketManager.sellTickets(client);
+
+        // then
+        assertEquals(2, client.getOrders_().get(0).getOrderLines().size());
+        assertEquals(2, client.getOrders_().get(0).getOrderLines().get(1).getQuantity());
+        assertEquals(3, client.getInventorySize());
+    }
+}
@@ -129,7 +129,7 @@ public class PriceLevelJPATest {
         event.sellTickets(client1);
 
         // then
-        assertEquals(30.00, client1.getOrders_().get(0).getDayTickets().get(0).getStdPrice());
+        assertEquals(30.00, client1.getOrders_().get(0).getOrderLines().get(0).getUnitPrice());
     }
 
     @Test
@@ -147,7 +147,7 @@ public class PriceLevelJPATest {
         event.sellTickets(client1);
 
         // then
-        assertEquals(52.49, client1.getOrders_().get(1).getVipTickets().get(0).getStdPrice());
+        assertEquals(52.49, client1.getOrders_().get(1).getOrderLines().get(0).getUnitPrice());
     }
 
     @Test
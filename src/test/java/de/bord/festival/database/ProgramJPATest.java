@@ -0,0 +1,135 @@
+package de.bord.festival.database;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.*;
+import de.bord.festival.repository.EventRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the sql statements, which read the program page of an event, with the hibernate statistics
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ProgramJPATest {
+
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    EventRepository eventRepository;
+
+    HelpClasses helper = new HelpClasses();
+
+    @Test
+    void should_read_the_program_with_one_statement_for_every_day_stage_and_time_slot_list() throws Exception {
+        // given 5 days with 6 stages and 200 bands
+        long eventId = saveEvent(5, 6, 200);
+        Statistics statistics = getStatistics();
+
+        // when
+        Event event = eventRepository.findById(eventId);
+        int numberOfTimeSlots = readProgramLikeThePage(event);
+
+        // then
+        assertEquals(200, numberOfTimeSlots);
+        assertTrue(statistics.getPrepareStatementCount() > 5 * 6);
+    }
+
+    @Test
+    void should_read_the_program_with_a_few_statements() throws Exception {
+        // given 5 days with 6 stages and 200 bands
+        long eventId = saveEvent(5, 6, 200);
+        Statistics statistics = getStatistics();
+
+        // when
+        Event event = eventRepository.findWithProgramById(eventId);
+        int numberOfTimeSlots = readProgramLikeThePage(event);
+
+        // then
+        assertEquals(200, numberOfTimeSlots);
+        assertTrue(statistics.getPrepareStatementCount() <= 8);
+    }
+
+    @Test
+    void should_read_the_same_number_of_statements_for_a_bigger_program() throws Exception {
+        // given
+        long smallEventId = saveEvent(1, 1, 1);
+        long bigEventId = saveEvent(10, 10, 700);
+        Statistics statistics = getStatistics();
+        readProgramLikeThePage(eventRepository.findWithProgramById(smallEventId));
+        long statementsOfSmallEvent = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+
+        // when
+        readProgramLikeThePage(eventRepository.findWithProgramById(bigEventId));
+
+        // then
+        assertEquals(statementsOfSmallEvent, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void should_return_null_for_an_unknown_event() {
+        assertNull(eventRepository.findWithProgramById(42));
+    }
+
+    private long saveEvent(int numberOfDays, int numberOfStages, int numberOfBands) throws Exception {
+        Event event = Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 30, LocalDate.of(2018, 1, 1),
+                LocalDate.of(2018, 1, numberOfDays), "Weinfest", BigDecimal.valueOf(1_000_000),
+                helper.getStage(), helper.exampleTicketManager(), helper.getAddress());
+        for (int i = 2; i <= numberOfStages; i++) {
+            event.addStage(helper.getStage("Stage" + i));
+        }
+        for (int i = 0; i < numberOfBands; i++) {
+            event.addBand(helper.getBand("band" + i, 100, 60));
+        }
+        long eventId = eventRepository.save(event).getId();
+        entityManager.flush();
+        entityManager.clear();
+        return eventId;
+    }
+
+    private Statistics getStatistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    /**
+     * reads everything, which program.html shows
+     */
+    private int readProgramLikeThePage(Event event) {
+        int numberOfTimeSlots = 0;
+        for (Map.Entry<LocalDate, Program> dayProgram : event.getPrograms().entrySet()) {
+            for (Map.Entry<Stage, TimeSlotList> program : dayProgram.getValue().getProgramsForStages().entrySet()) {
+                assertNotNull(program.getKey().getStageName());
+                for (TimeSlot timeSlot : program.getValue().getTimeSlots()) {
+                    assertNotNull(timeSlot.getTime());
+                    assertNotNull(timeSlot.getBand().getName());
+                    numberOfTimeSlots++;
+                }
+            }
+        }
+        for (Band band : event.getBands()) {
+            assertNotNull(band.getName());
+        }
+        for (Stage stage : event.getStages()) {
+            assertNotNull(stage.getStageName());
+        }
+        return numberOfTimeSlots;
+    }
+}
@@ -0,0 +1,123 @@
+package de.bord.festival.database;
+
+import de.bord.festival.eventManagement.ReferenceDataCache;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Address;
+import de.bord.festival.models.Stage;
+import de.bord.festival.repository.BandRepository;
+import de.bord.festival.repository.StageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every repository call runs in its own transaction, so the cache is filled, when the transaction is committed
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ReferenceDataCacheJPATest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    StageRepository stageRepository;
+    @Autowired
+    BandRepository bandRepository;
+
+    HelpClasses helper = new HelpClasses();
+    ReferenceDataCache referenceDataCache;
+    Statistics statistics;
+
+    @BeforeEach
+    void initialize() {
+        referenceDataCache = new ReferenceDataCache(entityManagerFactory);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void should_read_the_stage_from_the_cache() {
+        // given
+        long stageId = stageRepository.save(helper.getStage("Mainstage")).getId();
+        stageRepository.findById(stageId);
+        statistics.clear();
+
+        // when
+        Stage stage = stageRepository.findById(stageId);
+
+        // then
+        assertEquals("Mainstage", stage.getStageName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1.0, referenceDataCache.getHitRatio(Stage.class));
+    }
+
+    @Test
+    void should_read_the_changed_stage_after_it_is_saved() {
+        // given
+        Stage stage = stageRepository.save(helper.getStage("Mainstage"));
+        stage = stageRepository.findById(stage.getId());
+
+        // when
+        stage.setStageName("Secondstage");
+        stageRepository.save(stage);
+
+        // then
+        assertEquals("Secondstage", stageRepository.findById(stage.getId()).getStageName());
+    }
+
+    @Test
+    void should_read_the_band_from_the_database() {
+        // given
+        long bandId = bandRepository.save(helper.getBand("band1", 100, 60)).getId();
+        statistics.clear();
+
+        // when
+        bandRepository.findById(bandId);
+
+        // then the band is not cached
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    void should_return_no_hit_ratio_for_a_region_which_was_not_read() {
+        assertTrue(Double.isNaN(referenceDataCache.getHitRatio(Address.class)));
+    }
+
+    @Test
+    void should_register_the_hit_ratios_if_the_statistics_are_turned_on() {
+        // given
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        // when
+        referenceDataCache.bindTo(registry);
+
+        // then
+        assertEquals(3, registry.find("festival.cache.hit.ratio").gauges().size());
+    }
+
+    @Test
+    void should_not_register_the_hit_ratios_if_the_statistics_are_turned_off() {
+        // given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        statistics.setStatisticsEnabled(false);
+
+        // when
+        referenceDataCache.bindTo(registry);
+
+        // then
+        assertNull(registry.find("festival.cache.hit.ratio").gauge());
+    }
+}
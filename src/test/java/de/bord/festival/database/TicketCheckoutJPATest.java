@@ -0,0 +1,135 @@
+package de.bord.festival.database;
+
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.Role;
+import de.bord.festival.repository.ClientRepository;
+import de.bord.festival.repository.EventRepository;
+import de.bord.festival.repository.SaleRecordRepository;
+import de.bord.festival.ticket.TicketCheckoutService;
+import de.bord.festival.ticket.TicketManagerLanes;
+import de.bord.festival.ticket.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent checkouts against the database, every checkout commits its own transactions
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class TicketCheckoutJPATest {
+
+    static final int NUMBER_OF_CLIENTS = 20;
+
+    @Autowired
+    TicketCheckoutService ticketCheckoutService;
+    @Autowired
+    TicketManagerLanes ticketManagerLanes;
+    @Autowired
+    ClientRepository clientRepository;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    SaleRecordRepository saleRecordRepository;
+
+    HelpClasses helper = new HelpClasses();
+    Event event;
+    long ticketManagerId;
+    List<Client> clients;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        //20 clients with 2 day-tickets in their carts
+        event = eventRepository.save(Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 30,
+                LocalDate.of(2018, 1, 1), LocalDate.of(2018, 1, 1), "Weinfest", BigDecimal.valueOf(2019),
+                helper.getStage(), helper.exampleTicketManager(100, 100, 100), helper.getAddress()));
+        ticketManagerId = event.getTicketManager().getId();
+        clients = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_CLIENTS; i++) {
+            Client client = clientRepository.save(Client.getNewClient("Checkout", "User",
+                    "checkout" + i + "@test.de", "pass", helper.getAddress(), Role.USER));
+            TicketManagerLanes.await(ticketManagerLanes.addTicket(ticketManagerId, client, Type.DAY));
+            TicketManagerLanes.await(ticketManagerLanes.addTicket(ticketManagerId, client, Type.DAY));
+            clients.add(clientRepository.save(client));
+        }
+    }
+
+    @Test
+    void should_sell_the_carts_of_concurrent_clients_once() throws Exception {
+        // when all clients buy at the same time
+        checkoutConcurrently(clients);
+
+        // then
+        assertEquals(NUMBER_OF_CLIENTS, saleRecordRepository.findByTicketManagerIdOrderById(ticketManagerId).size());
+        assertEquals(2 * NUMBER_OF_CLIENTS, awaitSoldDayTickets(2 * NUMBER_OF_CLIENTS));
+        for (Client client : clients) {
+            assertEquals(2, clientRepository.findById(client.getId()).getInventorySize());
+        }
+    }
+
+    @Test
+    void should_sell_the_cart_once_if_the_same_client_buys_it_twice_at_the_same_time() throws Exception {
+        // given every client buys in two tabs
+        List<Client> checkouts = new ArrayList<>(clients);
+        checkouts.addAll(clients);
+
+        // when
+        checkoutConcurrently(checkouts);
+
+        // then the second checkout clashes with the first one on the client or finds the cart empty
+        assertEquals(NUMBER_OF_CLIENTS, saleRecordRepository.findByTicketManagerIdOrderById(ticketManagerId).size());
+        assertEquals(2 * NUMBER_OF_CLIENTS, awaitSoldDayTickets(2 * NUMBER_OF_CLIENTS));
+        for (Client client : clients) {
+            Client reloadedClient = clientRepository.findById(client.getId());
+            assertEquals(2, reloadedClient.getInventorySize());
+            assertEquals(1, reloadedClient.getOrders_().size());
+        }
+        assertEquals(0, ticketCheckoutService.getNumberOfFailedCheckouts());
+    }
+
+    /**
+     * the checkout does not wait for the journal, so the sales are folded into the persisted TicketManager a bit later
+     *
+     * @return sold day tickets of the persisted TicketManager, when they reach the expected number or after 10 seconds
+     */
+    private int awaitSoldDayTickets(int expectedNumberOfTickets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        int numberOfTickets = eventRepository.findById(event.getId()).getTicketManager().getNumberOfSoldDayTickets();
+        while (numberOfTickets < expectedNumberOfTickets && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            numberOfTickets = eventRepository.findById(event.getId()).getTicketManager().getNumberOfSoldDayTickets();
+        }
+        return numberOfTickets;
+    }
+
+    private void checkoutConcurrently(List<Client> checkouts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (Client client : checkouts) {
+            results.add(executor.submit(() -> {
+                start.await();
+                ticketCheckoutService.checkout(client.getId(), ticketManagerId);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
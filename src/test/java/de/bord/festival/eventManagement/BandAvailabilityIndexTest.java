@@ -0,0 +1,128 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.EventInfo;
+import de.bord.festival.repository.BandRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BandAvailabilityIndexTest {
+
+    HelpClasses help;
+    BandRepository bandRepository;
+    BandAvailabilityIndex bandAvailabilityIndex;
+
+    @BeforeEach
+    void initialize() {
+        help = new HelpClasses();
+        bandRepository = mock(BandRepository.class);
+        bandAvailabilityIndex = new BandAvailabilityIndex(bandRepository);
+    }
+
+    @Test
+    void should_not_book_the_band_at_the_same_time_in_two_events() throws DateDisorderException, PriceLevelException, TimeDisorderException, BudgetOverflowException, TimeSlotCantBeFoundException {
+        //given the band plays from 10:30 to 11:30 in the first event
+        Event firstEvent = help.getValidNDaysEvent(1);
+        firstEvent.setBandAvailabilityIndex(bandAvailabilityIndex);
+        firstEvent.addBand(help.getBand("band1", 60, 60));
+        Event secondEvent = help.getValidNDaysEvent(1);
+        secondEvent.setBandAvailabilityIndex(bandAvailabilityIndex);
+
+        //when
+        EventInfo eventInfo = secondEvent.addBand(help.getBand("band1", 60, 60));
+
+        //then
+        assertEquals(LocalTime.of(11, 30), eventInfo.getTime());
+    }
+
+    @Test
+    void should_book_the_band_again_after_it_is_removed_from_the_other_event() throws DateDisorderException, PriceLevelException, TimeDisorderException, BudgetOverflowException, TimeSlotCantBeFoundException {
+        //given
+        Event firstEvent = help.getValidNDaysEvent(1);
+        firstEvent.setBandAvailabilityIndex(bandAvailabilityIndex);
+        Band band = help.getBand("band1", 60, 60);
+        firstEvent.addBand(band);
+        firstEvent.removeBand(band);
+        Event secondEvent = help.getValidNDaysEvent(1);
+        secondEvent.setBandAvailabilityIndex(bandAvailabilityIndex);
+
+        //when
+        EventInfo eventInfo = secondEvent.addBand(help.getBand("band1", 60, 60));
+
+        //then
+        assertEquals(LocalTime.of(10, 30), eventInfo.getTime());
+    }
+
+    @Test
+    void should_find_the_plays_loaded_from_the_database() {
+        //given
+        when(bandRepository.findBookingsFrom(any())).thenReturn(Arrays.asList(
+                new BandBooking("band1", LocalDate.of(2030, 1, 1), LocalTime.of(12, 0), 60),
+                new BandBooking("band1", LocalDate.of(2030, 1, 1), LocalTime.of(15, 0), 30)));
+
+        //when
+        bandAvailabilityIndex.load();
+
+        //then
+        assertEquals(LocalDateTime.of(2030, 1, 1, 13, 0),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", LocalDateTime.of(2030, 1, 1, 11, 30), 60));
+        assertEquals(LocalDateTime.of(2030, 1, 1, 15, 30),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", LocalDateTime.of(2030, 1, 1, 15, 10), 10));
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band1", LocalDateTime.of(2030, 1, 1, 13, 0), 120));
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band2", LocalDateTime.of(2030, 1, 1, 12, 0), 60));
+    }
+
+    @Test
+    void should_load_the_saved_plays_of_the_band_again_after_a_failed_save() {
+        //given band1 was booked at 12:00, but the event was not saved, band2 is kept
+        bandAvailabilityIndex.book("band1", LocalDateTime.of(2030, 1, 1, 12, 0), 60);
+        bandAvailabilityIndex.book("band2", LocalDateTime.of(2030, 1, 1, 12, 0), 60);
+        when(bandRepository.findBookingsOfBandsFrom(eq(Arrays.asList("band1")), any())).thenReturn(Arrays.asList(
+                new BandBooking("band1", LocalDate.of(2030, 1, 1), LocalTime.of(15, 0), 30)));
+
+        //when
+        bandAvailabilityIndex.reload(Arrays.asList("band1"));
+
+        //then
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band1", LocalDateTime.of(2030, 1, 1, 12, 0), 60));
+        assertEquals(LocalDateTime.of(2030, 1, 1, 15, 30),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", LocalDateTime.of(2030, 1, 1, 15, 0), 10));
+        assertEquals(LocalDateTime.of(2030, 1, 1, 13, 0),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band2", LocalDateTime.of(2030, 1, 1, 12, 0), 60));
+    }
+
+    @Test
+    void should_keep_the_plays_sorted_after_many_bookings_and_releases() {
+        //given the band plays 30 minutes every hour of a day, booked backwards
+        LocalDateTime startOfDay = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int hour = 23; hour >= 0; hour--) {
+            bandAvailabilityIndex.book("band1", startOfDay.plusHours(hour), 30);
+        }
+
+        //when
+        bandAvailabilityIndex.release("band1", startOfDay.plusHours(12));
+
+        //then
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band1", startOfDay.plusHours(12), 60));
+        assertEquals(startOfDay.plusHours(11).plusMinutes(30),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", startOfDay.plusHours(11).plusMinutes(10), 60));
+        assertEquals(startOfDay.plusHours(13).plusMinutes(30),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", startOfDay.plusHours(12), 61));
+        assertEquals(startOfDay.plusDays(1).minusMinutes(30),
+                bandAvailabilityIndex.findEndOfOverlappingPlay("band1", startOfDay.plusHours(23).plusMinutes(29), 1));
+    }
+}
@@ -10,6 +10,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -306,4 +312,197 @@ class EventTest {
         LocalDateTime dateAndTime = LocalDateTime.of(2018, 01, 01, 12, 30);
         assertFalse(event.removeBand(band2, dateAndTime));
     }
+
+    @Test
+    void should_use_the_gap_of_a_removed_band_again() throws DateDisorderException, BudgetOverflowException, TimeSlotCantBeFoundException, PriceLevelException, TimeDisorderException {
+        //Given bands at 10:30, 12:00 and 13:30, the band at 12:00 is removed
+        Event event = help.getValidNDaysEvent(1);
+        event.addBand(help.getBand("band1", 60, 60));
+        Band band2 = help.getBand("band2", 60, 60);
+        event.addBand(band2);
+        event.addBand(help.getBand("band3", 60, 60));
+        event.removeBand(band2, LocalDateTime.of(2018, 1, 1, 12, 0));
+
+        //When
+        EventInfo eventInfo = event.addBand(help.getBand("band4", 60, 60));
+
+        //Then
+        assertEquals(LocalDateTime.of(2018, 1, 1, 12, 0), LocalDateTime.of(eventInfo.getDate(), eventInfo.getTime()));
+    }
+
+    @Test
+    void should_not_use_a_gap_which_is_too_short_for_band_and_break() throws DateDisorderException, BudgetOverflowException, TimeSlotCantBeFoundException, PriceLevelException, TimeDisorderException {
+        //Given a gap of 60 minutes plus break at 12:00
+        Event event = help.getValidNDaysEvent(1);
+        event.addBand(help.getBand("band1", 60, 60));
+        Band band2 = help.getBand("band2", 60, 60);
+        event.addBand(band2);
+        event.addBand(help.getBand("band3", 60, 60));
+        event.removeBand(band2, LocalDateTime.of(2018, 1, 1, 12, 0));
+
+        //When
+        EventInfo eventInfo = event.addBand(help.getBand("band4", 60, 61));
+
+        //Then the band plays after band3
+        assertEquals(LocalTime.of(15, 0), eventInfo.getTime());
+    }
+
+    @Test
+    void should_not_let_the_band_play_on_two_stages_at_the_same_time() throws DateDisorderException, PriceLevelException, TimeDisorderException, TimeSlotCantBeFoundException {
+        //Given a day with 2 stages, the first stage is full after the second band
+        LineUp lineUp = help.getLineUp(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 1));
+        lineUp.addStage(help.getStage("Stage2"));
+        Band band = help.getBand("band1", 100, 60);
+        lineUp.addBand(band);
+        lineUp.addBand(help.getBand("band2", 100, 700));
+
+        //When
+        EventInfo eventInfo = lineUp.addBand(band);
+
+        //Then the band plays on the second stage after its play on the first stage
+        assertEquals("Stage2", eventInfo.getStage().getStageName());
+        assertEquals(LocalTime.of(11, 30), eventInfo.getTime());
+    }
+
+    @Test
+    void should_return_null_if_the_band_would_play_on_two_stages_at_the_same_time() throws DateDisorderException, PriceLevelException, TimeDisorderException, TimeSlotCantBeFoundException {
+        //Given a day with 2 stages and a band, which plays 10 hours on the first stage
+        LineUp lineUp = help.getLineUp(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 1));
+        lineUp.addStage(help.getStage("Stage2"));
+        Band band = help.getBand("band1", 100, 600);
+        lineUp.addBand(band);
+
+        //When
+        EventInfo eventInfo = lineUp.addBand(band);
+
+        //Then
+        assertNull(eventInfo);
+    }
+
+    @Test
+    void should_add_the_longest_band_first() throws DateDisorderException, PriceLevelException, TimeDisorderException {
+        //given
+        Event event = help.getValidNDaysEvent(1);
+        Band shortBand = help.getBand("band1", 60, 60);
+        Band longBand = help.getBand("band2", 60, 120);
+
+        //when
+        List<Band> notAddedBands = event.addBands(Arrays.asList(shortBand, longBand));
+
+        //then
+        assertTrue(notAddedBands.isEmpty());
+        assertEquals(LocalTime.of(10, 30), longBand.getEventInfos().get(0).getTime());
+        assertEquals(LocalTime.of(13, 0), shortBand.getEventInfos().get(0).getTime());
+    }
+
+    @Test
+    void should_leave_out_bands_which_are_not_affordable_or_find_no_time() throws DateDisorderException, PriceLevelException, TimeDisorderException {
+        //given a budget of 2019
+        Event event = help.getValidNDaysEvent(1);
+        Band expensiveBand = help.getBand("band1", 1500, 60);
+        Band tooExpensiveBand = help.getBand("band2", 1000, 60);
+        Band tooLongBand = help.getBand("band3", 100, 900);
+
+        //when
+        List<Band> notAddedBands = event.addBands(Arrays.asList(expensiveBand, tooExpensiveBand, tooLongBand));
+
+        //then
+        assertEquals(Arrays.asList(tooLongBand, tooExpensiveBand), notAddedBands);
+        assertEquals(1, event.getNumberOfBands());
+        assertEquals(1500, event.getActualCosts());
+    }
+
+    @Test
+    void should_add_hundreds_of_bands_to_many_stages_without_overlapping_plays() throws DateDisorderException, TimeDisorderException, PriceLevelException {
+        //given 3 days with 24 stages
+        Event event = Event.getNewEvent(LocalTime.of(10, 30), LocalTime.of(23, 59), 30, LocalDate.of(2018, 1, 1),
+                LocalDate.of(2018, 1, 3), "Weinfest", BigDecimal.valueOf(1_000_000),
+                help.getStage(), help.exampleTicketManager(), help.getAddress());
+        for (int i = 2; i <= 24; i++) {
+            event.addStage(help.getStage("Stage" + i));
+        }
+        List<Band> bands = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            bands.add(help.getBand("band" + i, 100, 30 + i % 4 * 30));
+        }
+
+        //when
+        List<Band> notAddedBands = event.addBands(bands);
+
+        //then every band plays once and the plays on a stage keep the break between them
+        assertTrue(notAddedBands.isEmpty());
+        assertEquals(500, event.getNumberOfBands());
+        Map<String, LocalDateTime> endsOfStages = new HashMap<>();
+        List<EventInfo> plays = new ArrayList<>();
+        for (Band band : bands) {
+            assertEquals(1, band.getNumberOfEventInfo());
+            plays.add(band.getEventInfos().get(0));
+        }
+        plays.sort(Comparator.comparing((EventInfo play) -> play.getDate().atTime(play.getTime())));
+        for (EventInfo play : plays) {
+            String stageOfDay = play.getStage().getStageName() + play.getDate();
+            LocalDateTime start = play.getDate().atTime(play.getTime());
+            LocalDateTime endOfStage = endsOfStages.get(stageOfDay);
+            assertTrue(endOfStage == null || !start.isBefore(endOfStage.plusMinutes(30)));
+            endsOfStages.put(stageOfDay, start.plusMinutes(play.getMinutesOnStage()));
+        }
+    }
+
+    @Test
+    void should_keep_the_order_of_the_stages_after_a_stage_is_removed() throws DateDisorderException, PriceLevelException, TimeDisorderException {
+        //given 3 days with the stages Stage1, Stage2 and Stage3
+        LineUp lineUp = help.getLineUp(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 3));
+        lineUp.addStage(help.getStage("Stage2"));
+        lineUp.addStage(help.getStage("Stage3"));
+
+        //when
+        boolean removed = lineUp.removeStage("Stage2");
+        lineUp.addStage(help.getStage("Stage4"));
+
+        //then
+        assertTrue(removed);
+        assertNull(lineUp.findStage("Stage2"));
+        assertEquals("Stage4", lineUp.findStage("Stage4").getStageName());
+        for (Program program : lineUp.getDayPrograms().values()) {
+            List<String> stageNames = new ArrayList<>();
+            for (Stage stage : program.getProgramsForStages().keySet()) {
+                stageNames.add(stage.getStageName());
+            }
+            assertEquals(Arrays.asList("Stage1", "Stage3", "Stage4"), stageNames);
+        }
+    }
+
+    @Test
+    void should_create_the_program_of_a_day_when_the_first_band_plays_on_it() throws DateDisorderException, PriceLevelException, TimeDisorderException, TimeSlotCantBeFoundException {
+        //given an event of 90 days, which is full on the first day
+        LineUp lineUp = help.getLineUp(LocalDate.of(2020, 6, 1), LocalDate.of(2020, 8, 29));
+        lineUp.addBand(help.getBand("band1", 100, 700));
+
+        //when
+        EventInfo eventInfo = lineUp.addBand(help.getBand("band2", 100, 700));
+
+        //then
+        assertEquals(LocalDate.of(2020, 6, 2), eventInfo.getDate());
+        assertEquals(90, lineUp.getNumberOfDays());
+        Map<LocalDate, Program> dayPrograms = lineUp.getDayPrograms();
+        assertEquals(90, dayPrograms.size());
+        assertTrue(dayPrograms.get(LocalDate.of(2020, 8, 29)).getProgramsForStages().values().iterator().next().getTimeSlots().isEmpty());
+    }
+
+    @Test
+    void should_share_one_empty_program_for_the_days_without_bands() throws DateDisorderException, PriceLevelException, TimeDisorderException, TimeSlotCantBeFoundException {
+        //given
+        LineUp lineUp = help.getLineUp(LocalDate.of(2020, 6, 1), LocalDate.of(2020, 8, 29));
+        lineUp.addBand(help.getBand("band1", 100, 60));
+
+        //when
+        Map<LocalDate, Program> dayPrograms = lineUp.getDayPrograms();
+
+        //then
+        assertSame(dayPrograms.get(LocalDate.of(2020, 6, 2)), dayPrograms.get(LocalDate.of(2020, 8, 29)));
+        assertNotSame(dayPrograms.get(LocalDate.of(2020, 6, 1)), dayPrograms.get(LocalDate.of(2020, 6, 2)));
+        assertNull(dayPrograms.get(LocalDate.of(2020, 8, 30)));
+        assertEquals(1, lineUp.getProgramsOfDaysWithBands().size());
+        assertThrows(UnsupportedOperationException.class, () -> dayPrograms.put(LocalDate.of(2020, 6, 3), null));
+    }
 }
@@ -0,0 +1,192 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.TimeSlot;
+import de.bord.festival.repository.BandRepository;
+import de.bord.festival.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LineUpCompactorTest {
+
+    HelpClasses help;
+    EventRepository eventRepository;
+    PlatformTransactionManager transactionManager;
+    BandRepository bandRepository;
+    BandAvailabilityIndex bandAvailabilityIndex;
+    LineUpCompactor lineUpCompactor;
+    Event event;
+    Band band1;
+    Band band2;
+    Band band3;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        help = new HelpClasses();
+        eventRepository = mock(EventRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        bandRepository = mock(BandRepository.class);
+        bandAvailabilityIndex = new BandAvailabilityIndex(bandRepository);
+        lineUpCompactor = new LineUpCompactor(eventRepository, bandAvailabilityIndex, transactionManager);
+
+        //an event with one day, the break is 30 minutes
+        //band1 plays from 10:30 to 11:30, band2 from 12:00 to 13:00, band3 from 13:30 to 14:30
+        event = help.getValidNDaysEvent(1);
+        band1 = help.getBand("band1", 100, 60);
+        band2 = help.getBand("band2", 100, 60);
+        band3 = help.getBand("band3", 100, 60);
+        event.addBand(band1);
+        event.addBand(band2);
+        event.addBand(band3);
+        when(eventRepository.findById(1L)).thenReturn(event);
+        when(eventRepository.findIdsStartingFromGreaterThan(any(), eq(0L), any())).thenReturn(Arrays.asList(1L, 2L));
+        when(eventRepository.findIdsStartingFromGreaterThan(any(), eq(2L), any())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void should_move_the_later_bands_into_the_gap() {
+        //given
+        event.removeBand(band2);
+
+        //when
+        long recoveredMinutes = event.compactLineUp();
+
+        //then
+        assertEquals(90, recoveredMinutes);
+        assertEquals(LocalTime.of(10, 30), getTimeSlots().get(0).getTime());
+        assertEquals(LocalTime.of(12, 0), getTimeSlots().get(1).getTime());
+        assertEquals(LocalTime.of(12, 0), band3.getEventInfos().get(0).getTime());
+    }
+
+    @Test
+    void should_keep_the_break_between_two_bands() {
+        //given
+        event.removeBand(band1);
+
+        //when
+        long recoveredMinutes = event.compactLineUp();
+
+        //then
+        assertEquals(90, recoveredMinutes);
+        assertEquals(LocalTime.of(10, 30), getTimeSlots().get(0).getTime());
+        assertEquals(LocalTime.of(12, 0), getTimeSlots().get(1).getTime());
+    }
+
+    @Test
+    void should_find_the_gap_again_after_the_compaction() throws Exception {
+        //given
+        event.removeBand(band2);
+        event.compactLineUp();
+
+        //when
+        event.addBand(help.getBand("band4", 100, 60));
+
+        //then
+        assertEquals(LocalTime.of(13, 30), getTimeSlots().get(2).getTime());
+    }
+
+    @Test
+    void should_not_move_a_band_to_the_time_of_its_play_on_another_stage() throws Exception {
+        //given Stage1: band1 from 10:30 to 11:30, band4 from 12:00 to 14:00, band5 until the end of the day
+        //Stage2: band6 from 10:30 to 11:30, band4 from 14:00 to 16:00
+        event = help.getValidNDaysEvent(1);
+        event.addStage(help.getStage("Stage2"));
+        Band band4 = help.getBand("band4", 100, 120);
+        Band band6 = help.getBand("band6", 100, 60);
+        event.addBand(band1);
+        event.addBand(band4);
+        event.addBand(help.getBand("band5", 100, 560));
+        event.addBand(band6);
+        event.addBand(band4);
+        event.removeBand(band6);
+
+        //when
+        long recoveredMinutes = event.compactLineUp();
+
+        //then
+        assertEquals(0, recoveredMinutes);
+        List<TimeSlot> timeSlotsOnStage2 = event.getPrograms().get(LocalDate.of(2018, 1, 1))
+                .getProgramsForStages().get(event.getStages().get(1)).getTimeSlots();
+        assertEquals(LocalTime.of(14, 0), timeSlotsOnStage2.get(0).getTime());
+    }
+
+    @Test
+    void should_not_move_a_band_to_the_time_of_its_play_in_another_event() {
+        //given band3 plays from 10:30 to 11:30 in another event
+        bandAvailabilityIndex.book("band3", LocalDateTime.of(2018, 1, 1, 10, 30), 60);
+        event.removeBand(band1);
+        event.removeBand(band2);
+
+        //when
+        long recoveredMinutes = lineUpCompactor.compact(1L);
+
+        //then
+        assertEquals(120, recoveredMinutes);
+        assertEquals(LocalTime.of(11, 30), band3.getEventInfos().get(0).getTime());
+        assertNotNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band3", LocalDateTime.of(2018, 1, 1, 11, 30), 60));
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band3", LocalDateTime.of(2018, 1, 1, 13, 0), 60));
+        verify(eventRepository, times(1)).save(event);
+    }
+
+    @Test
+    void should_load_the_plays_of_the_bands_again_if_the_compaction_is_not_saved() {
+        //given band3 was booked at 13:30 before
+        bandAvailabilityIndex.book("band3", LocalDateTime.of(2018, 1, 1, 13, 30), 60);
+        event.removeBand(band2);
+        when(eventRepository.save(event)).thenThrow(new IllegalStateException("database is gone"));
+        when(bandRepository.findBookingsOfBandsFrom(any(), any())).thenReturn(Arrays.asList(
+                new BandBooking("band3", LocalDate.of(2018, 1, 1), LocalTime.of(13, 30), 60)));
+
+        //when
+        assertThrows(IllegalStateException.class, () -> lineUpCompactor.compact(1L));
+
+        //then the moved play of band3 is not kept
+        assertNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band3", LocalDateTime.of(2018, 1, 1, 12, 0), 60));
+        assertNotNull(bandAvailabilityIndex.findEndOfOverlappingPlay("band3", LocalDateTime.of(2018, 1, 1, 13, 30), 60));
+    }
+
+    @Test
+    void should_compact_the_other_events_if_one_fails() {
+        //given event 2 can not be read
+        when(eventRepository.findById(2L)).thenThrow(new IllegalStateException("database is gone"));
+        event.removeBand(band2);
+
+        //when
+        lineUpCompactor.compactAllEvents();
+
+        //then
+        assertEquals(LocalTime.of(12, 0), band3.getEventInfos().get(0).getTime());
+        verify(eventRepository, times(1)).save(event);
+    }
+
+    @Test
+    void should_compact_only_events_which_start_after_today() {
+        //when
+        lineUpCompactor.compactAllEvents();
+
+        //then
+        verify(eventRepository).findIdsStartingFromGreaterThan(eq(LocalDate.now().plusDays(1)), eq(0L), any());
+    }
+
+    private List<TimeSlot> getTimeSlots() {
+        return event.getPrograms().get(LocalDate.of(2018, 1, 1))
+                .getProgramsForStages().values().iterator().next().getTimeSlots();
+    }
+}
@@ -0,0 +1,71 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.repository.BandRepository;
+import de.bord.festival.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LineUpSchedulerTest {
+
+    HelpClasses helpClasses;
+    EventRepository eventRepository;
+    PlatformTransactionManager transactionManager;
+    BandRepository bandRepository;
+    Event event;
+    LineUpScheduler lineUpScheduler;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        helpClasses = new HelpClasses();
+        eventRepository = mock(EventRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        event = helpClasses.getValidNDaysEvent(1);
+        when(eventRepository.findById(1L)).thenReturn(event);
+
+        bandRepository = mock(BandRepository.class);
+        lineUpScheduler = new LineUpScheduler(eventRepository, new BandAvailabilityIndex(bandRepository), transactionManager);
+    }
+
+    @Test
+    void should_save_the_event_once_in_one_transaction() {
+        //given
+        Band band1 = helpClasses.getBand("band1", 100, 60);
+        Band band2 = helpClasses.getBand("band2", 100, 900);
+
+        //when
+        List<Band> notAddedBands = lineUpScheduler.scheduleBands(1L, Arrays.asList(band1, band2));
+
+        //then
+        assertEquals(Arrays.asList(band2), notAddedBands);
+        assertEquals(1, event.getNumberOfBands());
+        verify(eventRepository, times(1)).save(event);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void should_load_the_plays_of_the_bands_again_if_the_event_is_not_saved() {
+        //given
+        Band band = helpClasses.getBand("band1", 100, 60);
+        when(eventRepository.save(event)).thenThrow(new IllegalStateException("database is gone"));
+
+        //when
+        assertThrows(IllegalStateException.class, () -> lineUpScheduler.scheduleBands(1L, Arrays.asList(band)));
+
+        //then
+        verify(bandRepository, times(1)).findBookingsOfBandsFrom(eq(Arrays.asList("band1")), any());
+    }
+}
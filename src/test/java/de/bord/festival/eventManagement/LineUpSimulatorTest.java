@@ -0,0 +1,120 @@
+package de.bord.festival.eventManagement;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Band;
+import de.bord.festival.models.Event;
+import de.bord.festival.models.TimeSlotList;
+import de.bord.festival.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class LineUpSimulatorTest {
+
+    HelpClasses help;
+    LineUpSimulator lineUpSimulator;
+    Event event;
+    Band band1;
+
+    @BeforeEach
+    void initialize() throws DateDisorderException, PriceLevelException, TimeDisorderException, BudgetOverflowException, TimeSlotCantBeFoundException {
+        help = new HelpClasses();
+        lineUpSimulator = new LineUpSimulator(mock(EventRepository.class), mock(PlatformTransactionManager.class));
+        //an event with one day and a budget of 2019, band1 plays from 10:30 to 11:30
+        event = help.getValidNDaysEvent(1);
+        band1 = help.getBand("band1", 500, 60);
+        event.addBand(band1);
+    }
+
+    @Test
+    void should_not_change_the_event() {
+        //given
+        Scenario scenario = new Scenario("without band1")
+                .removeBand(band1)
+                .addBand(help.getBand("band2", 300, 120))
+                .addStage("Stage2");
+
+        //when
+        ScenarioResult result = lineUpSimulator.simulate(event, Arrays.asList(scenario)).get(0);
+
+        //then
+        assertEquals(300, result.getActualCosts());
+        assertEquals(2, result.getEvent().getNumberOfStages());
+        assertEquals(500, event.getActualCosts());
+        assertEquals(1, event.getNumberOfStages());
+        assertTrue(event.containsBand(band1));
+        assertEquals(1, band1.getNumberOfEventInfo());
+        TimeSlotList timeSlotList = event.getPrograms().get(LocalDate.of(2018, 1, 1))
+                .getProgramsForStages().values().iterator().next();
+        assertEquals(1, timeSlotList.getTimeSlots().size());
+    }
+
+    @Test
+    void should_return_the_bands_which_are_not_affordable() {
+        //given 1519 of the budget are left
+        Band expensiveBand = help.getBand("band2", 1600, 60);
+        Scenario scenario = new Scenario("expensive")
+                .addBands(Arrays.asList(expensiveBand, help.getBand("band3", 1000, 60)));
+
+        //when
+        ScenarioResult result = lineUpSimulator.simulate(event, Arrays.asList(scenario)).get(0);
+
+        //then
+        assertEquals(Arrays.asList(expensiveBand), result.getNotAddedBands());
+        assertEquals(1500, result.getActualCosts());
+    }
+
+    @Test
+    void should_return_the_utilisation_of_every_stage() {
+        //given a day of 809 minutes, band1 plays 60 minutes on Stage1
+        Scenario scenario = new Scenario("second stage")
+                .addStage("Stage2")
+                .removeBand(band1, LocalDateTime.of(2018, 1, 1, 10, 30))
+                .addBand(help.getBand("band2", 100, 809));
+
+        //when
+        ScenarioResult result = lineUpSimulator.simulate(event, Arrays.asList(scenario)).get(0);
+
+        //then
+        assertEquals(809 / 809.0, result.getStageUtilisation().get("Stage1"));
+        assertEquals(0, result.getStageUtilisation().get("Stage2"));
+        assertEquals(60 / 809.0, event.getLineUp().getStageUtilisation().get("Stage1"));
+    }
+
+    @Test
+    void should_try_many_scenarios_in_parallel() {
+        //given
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Scenario scenario = new Scenario("scenario" + i).addStage("Stage2");
+            for (int j = 0; j <= i % 5; j++) {
+                scenario.addBand(help.getBand("band" + (j + 2), 100, 60));
+            }
+            scenarios.add(scenario);
+        }
+
+        //when
+        List<ScenarioResult> results = lineUpSimulator.simulate(event, scenarios);
+
+        //then
+        for (int i = 0; i < 50; i++) {
+            assertEquals("scenario" + i, results.get(i).getNameOfScenario());
+            assertEquals(500 + (i % 5 + 1) * 100, results.get(i).getActualCosts());
+            assertEquals(i % 5 + 2, results.get(i).getEvent().getNumberOfBands());
+        }
+        assertEquals(1, event.getNumberOfBands());
+        assertEquals(1, event.getNumberOfStages());
+        assertEquals(LocalTime.of(10, 30), band1.getEventInfos().get(0).getTime());
+    }
+}
@@ -0,0 +1,307 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.PriceLevelNotAvailableException;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.SaleRecord;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.repository.SaleRecordRepository;
+import de.bord.festival.repository.TicketManagerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class SalesJournalTest {
+
+    HelpClasses helpClasses;
+    SaleRecordRepository saleRecordRepository;
+    TicketManagerRepository ticketManagerRepository;
+    TicketManager persistedTicketManager;
+    EntityManager entityManager;
+    SalesJournal salesJournal;
+    //the committed records
+    List<SaleRecord> journal;
+    AtomicLong ids;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        helpClasses = new HelpClasses();
+        saleRecordRepository = mock(SaleRecordRepository.class);
+        ticketManagerRepository = mock(TicketManagerRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        //the ticket manager row, into which the journal is folded
+        persistedTicketManager = helpClasses.exampleTicketManager(100, 100, 100);
+        when(ticketManagerRepository.findById(2L)).thenReturn(persistedTicketManager);
+        when(ticketManagerRepository.save(any(TicketManager.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        journal = new CopyOnWriteArrayList<>();
+        ids = new AtomicLong();
+        when(saleRecordRepository.findByTicketManagerIdAndIdBetweenOrderById(anyLong(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> journal.stream()
+                        .filter(sale -> sale.getTicketManagerId() == (long) invocation.getArgument(0)
+                                && sale.getId() >= (long) invocation.getArgument(1)
+                                && sale.getId() <= (long) invocation.getArgument(2))
+                        .collect(Collectors.toList()));
+
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        entityManager = mock(EntityManager.class);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+
+        salesJournal = new SalesJournal(saleRecordRepository, ticketManagerRepository, transactionManager, entityManagerFactory);
+        salesJournal.start();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        salesJournal.stop();
+    }
+
+    @Test
+    void should_write_60_concurrent_sales_in_less_group_commits() throws Exception {
+        // given 60 carts with 1 day-ticket
+        List<SaleRecord> sales = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            sales.add(committed(exampleSale(Type.DAY)));
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<CompletableFuture<Void>>> appended = new ArrayList<>();
+        for (SaleRecord sale : sales) {
+            appended.add(executor.submit(() -> salesJournal.append(sale)));
+        }
+        for (Future<CompletableFuture<Void>> future : appended) {
+            future.get().get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(60, salesJournal.getNumberOfRecords());
+        assertTrue(salesJournal.getNumberOfGroupCommits() < 60);
+        assertEquals(40, persistedTicketManager.getNumberOfDayTicketsLeft());
+        assertEquals(60 * sales.get(0).getIncome(), persistedTicketManager.getIncomeTicketSales(), 0.001);
+    }
+
+    @Test
+    void should_fold_reversed_sale_back_into_the_tickets_left() throws Exception {
+        // given
+        SaleRecord sale = committed(exampleSale(Type.VIP));
+
+        // when
+        salesJournal.append(sale).get(10, TimeUnit.SECONDS);
+        salesJournal.append(committed(sale.reversed())).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(100, persistedTicketManager.getNumberOfVipTicketsLeft());
+        assertEquals(0, persistedTicketManager.getIncomeTicketSales(), 0.001);
+    }
+
+    @Test
+    void should_fold_the_sale_again_after_a_version_clash() throws Exception {
+        // given the ticket manager was changed meanwhile, every transaction reads the row again
+        SaleRecord sale = committed(exampleSale(Type.DAY));
+        when(ticketManagerRepository.findById(2L)).thenAnswer(invocation -> helpClasses.exampleTicketManager(100, 100, 100));
+        List<TicketManager> savedTicketManagers = new ArrayList<>();
+        when(ticketManagerRepository.save(any(TicketManager.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(TicketManager.class, 2L))
+                .thenAnswer(invocation -> {
+                    savedTicketManagers.add(invocation.getArgument(0));
+                    return invocation.getArgument(0);
+                });
+
+        // when
+        salesJournal.append(sale).get(10, TimeUnit.SECONDS);
+
+        // then the sale is counted once
+        assertEquals(1, savedTicketManagers.size());
+        assertEquals(99, savedTicketManagers.get(0).getNumberOfDayTicketsLeft());
+        assertEquals(sale.getId(), savedTicketManagers.get(0).getLastSaleRecordId());
+        assertEquals(1, salesJournal.getNumberOfRecords());
+    }
+
+    @Test
+    void should_fold_the_sales_of_other_ticket_managers_if_one_fails() throws Exception {
+        // given ticket manager 3 can not be read
+        when(ticketManagerRepository.findById(3L)).thenThrow(new IllegalStateException("database is gone"));
+        Client client = helpClasses.exampleClient();
+        client.addTicket(Type.DAY, helpClasses.exampleTicketManager());
+        SaleRecord saleOfTicketManager3 = committed(SaleRecord.ofCart(3L, client));
+
+        // when
+        CompletableFuture<Void> failed = salesJournal.append(saleOfTicketManager3);
+        CompletableFuture<Void> folded = salesJournal.append(committed(exampleSale(Type.DAY)));
+
+        // then
+        assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        folded.get(10, TimeUnit.SECONDS);
+        assertEquals(99, persistedTicketManager.getNumberOfDayTicketsLeft());
+        assertEquals(1, salesJournal.getNumberOfRecords());
+    }
+
+    @Test
+    void should_save_the_price_level_before_the_kept_ticket_manager_takes_it() throws Exception {
+        // given
+        TicketManager keptTicketManager = helpClasses.exampleTicketManager(100, 100, 100);
+        when(entityManager.find(TicketManager.class, 2L)).thenReturn(keptTicketManager);
+        salesJournal.changePriceLevel(2L, ticketManager -> {
+            ticketManager.setAutomaticPriceLevelChange(false);
+            return null;
+        });
+
+        // when
+        boolean changed = salesJournal.changePriceLevel(2L, ticketManager -> ticketManager.setPriceLevel(2));
+
+        // then
+        assertTrue(changed);
+        assertEquals(2, persistedTicketManager.getActualPriceLevelIndex());
+        assertEquals(2, keptTicketManager.getActualPriceLevelIndex());
+        assertFalse(keptTicketManager.getAutomaticPriceLevelChange());
+        verify(ticketManagerRepository, atLeast(2)).save(persistedTicketManager);
+    }
+
+    @Test
+    void should_not_change_the_kept_ticket_manager_if_the_price_level_is_invalid() throws Exception {
+        // given
+        TicketManager keptTicketManager = helpClasses.exampleTicketManager(100, 100, 100);
+        when(entityManager.find(TicketManager.class, 2L)).thenReturn(keptTicketManager);
+
+        // then
+        assertThrows(PriceLevelNotAvailableException.class,
+                () -> salesJournal.changePriceLevel(2L, ticketManager -> ticketManager.setPriceLevel(7)));
+        assertEquals(0, keptTicketManager.getActualPriceLevelIndex());
+    }
+
+    @Test
+    void should_rebuild_the_ticket_manager_by_replaying_the_journal() throws Exception {
+        // given a ticket manager, whose counters were lost, and 3 sales in the journal
+        persistedTicketManager.applySaleRecord(exampleSale(Type.CAMPING));
+        committed(exampleSale(Type.DAY));
+        committed(exampleSale(Type.VIP));
+        committed(exampleSale(Type.VIP));
+
+        // when
+        TicketManager rebuiltTicketManager = salesJournal.replay(2L);
+
+        // then
+        assertEquals(99, rebuiltTicketManager.getNumberOfDayTicketsLeft());
+        assertEquals(100, rebuiltTicketManager.getNumberOfCampingTicketsLeft());
+        assertEquals(98, rebuiltTicketManager.getNumberOfVipTicketsLeft());
+        assertEquals(3, rebuiltTicketManager.totalNumberOfSoldTickets());
+    }
+
+    @Test
+    void should_return_the_same_ticket_manager_for_every_checkout() throws Exception {
+        // given
+        when(entityManager.find(TicketManager.class, 2L)).thenReturn(helpClasses.exampleTicketManager());
+
+        // when
+        TicketManager ticketManager = salesJournal.getTicketManager(2L);
+
+        // then
+        assertSame(ticketManager, salesJournal.getTicketManager(2L));
+        verify(entityManager, times(1)).find(TicketManager.class, 2L);
+        verify(entityManager, times(1)).close();
+    }
+
+    @Test
+    void should_replay_only_the_records_after_the_last_folded_record() throws Exception {
+        // given the first sale is already folded into the row
+        SaleRecord foldedSale = committed(exampleSale(Type.DAY));
+        persistedTicketManager.applySaleRecord(foldedSale);
+        committed(exampleSale(Type.VIP));
+        when(entityManager.find(TicketManager.class, 2L)).thenReturn(helpClasses.exampleTicketManager());
+
+        // when
+        salesJournal.getTicketManager(2L);
+
+        // then
+        verify(saleRecordRepository).findByTicketManagerIdAndIdBetweenOrderById(2L, foldedSale.getId() + 1, Long.MAX_VALUE - 1);
+        verify(saleRecordRepository, never()).findByTicketManagerIdOrderById(anyLong());
+        assertEquals(99, persistedTicketManager.getNumberOfDayTicketsLeft());
+        assertEquals(99, persistedTicketManager.getNumberOfVipTicketsLeft());
+        assertEquals(2, persistedTicketManager.getLastSaleRecordId());
+    }
+
+    @Test
+    void should_fold_a_record_after_the_record_with_a_lower_id_is_committed() throws Exception {
+        // given the first sale is saved but not committed yet
+        SaleRecord firstSale = exampleSale(Type.DAY);
+        firstSale.setId(ids.incrementAndGet());
+        salesJournal.begin(firstSale);
+        SaleRecord secondSale = committed(exampleSale(Type.DAY));
+
+        // when
+        CompletableFuture<Void> secondFolded = salesJournal.append(secondSale);
+        awaitGroupCommits(1);
+
+        // then the second sale waits, so the last folded id does not pass the first sale
+        assertFalse(secondFolded.isDone());
+        assertEquals(100, persistedTicketManager.getNumberOfDayTicketsLeft());
+
+        // when
+        journal.add(firstSale);
+        salesJournal.append(firstSale).get(10, TimeUnit.SECONDS);
+        secondFolded.get(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(98, persistedTicketManager.getNumberOfDayTicketsLeft());
+        assertEquals(secondSale.getId(), persistedTicketManager.getLastSaleRecordId());
+    }
+
+    @Test
+    void should_fold_a_waiting_record_if_the_record_with_a_lower_id_is_rolled_back() throws Exception {
+        // given
+        SaleRecord rolledBackSale = exampleSale(Type.DAY);
+        rolledBackSale.setId(ids.incrementAndGet());
+        salesJournal.begin(rolledBackSale);
+        CompletableFuture<Void> folded = salesJournal.append(committed(exampleSale(Type.DAY)));
+        awaitGroupCommits(1);
+
+        // when
+        salesJournal.abandon(rolledBackSale);
+
+        // then
+        folded.get(10, TimeUnit.SECONDS);
+        assertEquals(99, persistedTicketManager.getNumberOfDayTicketsLeft());
+    }
+
+    private void awaitGroupCommits(long numberOfGroupCommits) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (salesJournal.getNumberOfGroupCommits() < numberOfGroupCommits && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * gives the record an id and adds it to the committed records
+     */
+    private SaleRecord committed(SaleRecord sale) {
+        sale.setId(ids.incrementAndGet());
+        journal.add(sale);
+        return sale;
+    }
+
+    private SaleRecord exampleSale(Type type) throws Exception {
+        Client client = helpClasses.exampleClient();
+        client.addTicket(type, helpClasses.exampleTicketManager());
+        return SaleRecord.ofCart(2L, client);
+    }
+}
@@ -0,0 +1,127 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.SaleRecord;
+import de.bord.festival.models.TicketManager;
+import de.bord.festival.repository.ClientRepository;
+import de.bord.festival.repository.SaleRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TicketCheckoutServiceTest {
+
+    HelpClasses helpClasses;
+    ClientRepository clientRepository;
+    SaleRecordRepository saleRecordRepository;
+    SalesJournal salesJournal;
+    TicketManager ticketManager;
+    TicketCheckoutService ticketCheckoutService;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        helpClasses = new HelpClasses();
+        clientRepository = mock(ClientRepository.class);
+        saleRecordRepository = mock(SaleRecordRepository.class);
+        salesJournal = mock(SalesJournal.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        //every attempt reloads a fresh client, the ticket manager is kept by the journal
+        ticketManager = helpClasses.exampleTicketManager();
+        when(clientRepository.findById(1L)).thenAnswer(invocation -> helpClasses.exampleClientWith4Tickets());
+        when(salesJournal.getTicketManager(2L)).thenReturn(ticketManager);
+        when(salesJournal.append(any(SaleRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        ticketCheckoutService = new TicketCheckoutService(clientRepository, saleRecordRepository, salesJournal,
+                new TicketManagerLanes(salesJournal, new TicketHoldSweeper(), 2), transactionManager);
+    }
+
+    @Test
+    void should_retry_once_after_version_clash() throws TicketNotAvailableException {
+        // given
+        when(clientRepository.save(any(Client.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Client.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        ticketCheckoutService.checkout(1, 2);
+
+        // then the first sale is taken back, only the committed sale is appended to the journal
+        assertEquals(1, ticketCheckoutService.getNumberOfCheckouts());
+        assertEquals(1, ticketCheckoutService.getNumberOfConflicts());
+        assertEquals(1, ticketCheckoutService.getNumberOfRetries());
+        assertEquals(0, ticketCheckoutService.getNumberOfFailedCheckouts());
+        assertEquals(4, ticketManager.totalNumberOfSoldTickets());
+        verify(clientRepository, times(2)).findById(1L);
+
+        verify(saleRecordRepository, times(1)).save(any(SaleRecord.class));
+        ArgumentCaptor<SaleRecord> sales = ArgumentCaptor.forClass(SaleRecord.class);
+        verify(salesJournal, times(1)).append(sales.capture());
+        assertEquals(1, sales.getValue().getNumberOfDayTickets());
+        assertEquals(2, sales.getValue().getNumberOfCampingTickets());
+    }
+
+    @Test
+    void should_not_wait_for_the_journal_after_the_commit() throws TicketNotAvailableException {
+        // given the journal has not folded the sale yet
+        when(salesJournal.append(any(SaleRecord.class))).thenReturn(new CompletableFuture<>());
+
+        // when
+        ticketCheckoutService.checkout(1, 2);
+
+        // then
+        verify(saleRecordRepository, times(1)).save(any(SaleRecord.class));
+        verify(salesJournal, times(1)).append(any(SaleRecord.class));
+        assertEquals(4, ticketManager.totalNumberOfSoldTickets());
+    }
+
+    @Test
+    void should_throw_exception_after_max_attempts() {
+        // given
+        when(clientRepository.save(any(Client.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Client.class, 1L));
+
+        // then
+        assertThrows(TicketNotAvailableException.class, () -> ticketCheckoutService.checkout(1, 2));
+        assertEquals(TicketCheckoutService.MAX_ATTEMPTS, ticketCheckoutService.getNumberOfConflicts());
+        assertEquals(1, ticketCheckoutService.getNumberOfFailedCheckouts());
+        assertEquals(0, ticketManager.totalNumberOfSoldTickets());
+    }
+
+    @Test
+    void should_not_retry_if_tickets_are_not_available() throws PriceLevelException {
+        // given
+        when(salesJournal.getTicketManager(2L)).thenReturn(helpClasses.exampleTicketManager(0, 0, 0));
+
+        // then
+        assertThrows(TicketNotAvailableException.class, () -> ticketCheckoutService.checkout(1, 2));
+        assertEquals(0, ticketCheckoutService.getNumberOfRetries());
+        verify(salesJournal, never()).append(any(SaleRecord.class));
+        verify(clientRepository, never()).save(any(Client.class));
+        verify(saleRecordRepository, never()).save(any(SaleRecord.class));
+    }
+
+    @Test
+    void should_give_tickets_back_if_the_sale_record_could_not_be_saved() {
+        // given
+        when(saleRecordRepository.save(any(SaleRecord.class))).thenThrow(new IllegalStateException("database is gone"));
+
+        // then
+        assertThrows(IllegalStateException.class, () -> ticketCheckoutService.checkout(1, 2));
+        assertEquals(0, ticketManager.totalNumberOfSoldTickets());
+        assertEquals(0, ticketManager.getIncomeTicketSales());
+        verify(salesJournal, never()).append(any(SaleRecord.class));
+    }
+}
@@ -0,0 +1,248 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+public class TicketInventoryTest {
+
+    TicketHoldSweeper ticketHoldSweeper = new TicketHoldSweeper();
+
+    @Test
+    void should_return_null_and_take_all_tickets_of_the_cart() {
+        // given
+        TicketInventory inventory = new TicketInventory(2, 2, 2);
+        int[] cart = TicketInventory.emptyCart();
+        cart[Type.DAY.ordinal()] = 2;
+        cart[Type.VIP.ordinal()] = 1;
+
+        // when
+        Type notAvailableType = inventory.takeTickets(cart);
+
+        // then
+        assertNull(notAvailableType);
+        assertEquals(0, inventory.getTicketsLeft(Type.DAY));
+        assertEquals(2, inventory.getTicketsLeft(Type.CAMPING));
+        assertEquals(1, inventory.getTicketsLeft(Type.VIP));
+    }
+
+    @Test
+    void should_return_VIP_and_take_no_tickets_if_one_type_is_not_available() {
+        // given
+        TicketInventory inventory = new TicketInventory(2, 2, 2);
+        int[] cart = TicketInventory.emptyCart();
+        cart[Type.DAY.ordinal()] = 1;
+        cart[Type.CAMPING.ordinal()] = 1;
+        cart[Type.VIP.ordinal()] = 3;
+
+        // when
+        Type notAvailableType = inventory.takeTickets(cart);
+
+        // then
+        assertEquals(Type.VIP, notAvailableType);
+        assertEquals(2, inventory.getTicketsLeft(Type.DAY));
+        assertEquals(2, inventory.getTicketsLeft(Type.CAMPING));
+        assertEquals(2, inventory.getTicketsLeft(Type.VIP));
+    }
+
+    @Test
+    void should_hold_ticket_for_cart_and_sell_it() throws Exception {
+        // given ( example2TicketManager.getNumberOfDayTickets = 2 )
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.example2TicketManager();
+        Client client = helpClasses.exampleClient();
+
+        // when
+        client.addTicket(Type.DAY, ticketManager);
+
+        // then the held ticket is not available for others, but not sold yet
+        assertFalse(ticketManager.isAvailable(Type.DAY, 2));
+        assertEquals(2, ticketManager.getNumberOfDayTicketsLeft());
+
+        ticketManager.sellTickets(client);
+        assertEquals(1, ticketManager.getNumberOfDayTicketsLeft());
+        assertTrue(ticketManager.isAvailable(Type.DAY, 1));
+    }
+
+    @Test
+    void should_give_back_held_tickets_after_clearCart() throws Exception {
+        // given
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.example2TicketManager();
+        Client client = helpClasses.exampleClient();
+        client.addTicket(Type.DAY, ticketManager);
+        client.addTicket(Type.DAY, ticketManager);
+
+        // when
+        client.clearCart();
+
+        // then
+        assertTrue(ticketManager.isAvailable(Type.DAY, 2));
+        assertEquals(0, ticketManager.getNumberOfSoldDayTickets());
+    }
+
+    @Test
+    void should_give_back_the_hold_if_the_ticket_can_not_be_created() throws Exception {
+        // given
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = spy(helpClasses.example2TicketManager());
+        doThrow(new IllegalStateException("no ticket")).when(ticketManager).getNewTicket(Type.DAY);
+        Client client = helpClasses.exampleClient();
+
+        // when
+        assertThrows(IllegalStateException.class, () -> client.addTicket(Type.DAY, ticketManager));
+
+        // then
+        assertTrue(ticketManager.isAvailable(Type.DAY, 2));
+        assertEquals(0, client.getCartSize());
+        assertTrue(client.getHolds().isEmpty());
+    }
+
+    @Test
+    void should_give_back_expired_hold_with_sweeper() {
+        // given
+        TicketInventory inventory = new TicketInventory(1, 0, 0);
+        inventory.holdTicket(Type.DAY);
+        TicketHold hold = new TicketHold(inventory, Type.DAY, Duration.ZERO);
+        ticketHoldSweeper.register(hold);
+
+        // when
+        ticketHoldSweeper.sweepExpiredHolds();
+
+        // then
+        assertEquals(1, inventory.getTicketsLeft(Type.DAY));
+        assertEquals(0, inventory.getTicketsHeld(Type.DAY));
+        assertFalse(hold.claim());
+    }
+
+    @Test
+    void should_tell_the_owner_of_the_hold_after_the_sweeper_released_it() {
+        // given
+        TicketInventory inventory = new TicketInventory(1, 0, 0);
+        inventory.holdTicket(Type.DAY);
+        AtomicInteger numberOfReleases = new AtomicInteger();
+        ticketHoldSweeper.register(new TicketHold(inventory, Type.DAY, Duration.ZERO), numberOfReleases::incrementAndGet);
+
+        // when
+        ticketHoldSweeper.sweepExpiredHolds();
+
+        // then
+        assertEquals(1, numberOfReleases.get());
+        assertEquals(0, ticketHoldSweeper.getNumberOfHolds());
+    }
+
+    @Test
+    void should_not_give_back_claimed_hold_with_sweeper() {
+        // given
+        TicketInventory inventory = new TicketInventory(1, 0, 0);
+        inventory.holdTicket(Type.DAY);
+        TicketHold hold = new TicketHold(inventory, Type.DAY, Duration.ZERO);
+        ticketHoldSweeper.register(hold);
+        hold.claim();
+
+        // when
+        ticketHoldSweeper.sweepExpiredHolds();
+        hold.sell();
+
+        // then
+        assertEquals(0, inventory.getTicketsLeft(Type.DAY));
+        assertEquals(0, inventory.getTicketsNotSold(Type.DAY));
+    }
+
+    @Test
+    void should_drop_sold_hold_when_it_expires() {
+        // given
+        TicketInventory inventory = new TicketInventory(2, 0, 0);
+        inventory.holdTicket(Type.DAY);
+        inventory.holdTicket(Type.DAY);
+        TicketHold soldHold = new TicketHold(inventory, Type.DAY, Duration.ZERO);
+        TicketHold activeHold = new TicketHold(inventory, Type.DAY, TicketHold.HOLD_DURATION);
+        ticketHoldSweeper.register(soldHold);
+        ticketHoldSweeper.register(activeHold);
+        soldHold.claim();
+        soldHold.sell();
+
+        // when
+        int numberOfReleasedTickets = ticketHoldSweeper.sweepExpiredHolds();
+
+        // then
+        assertEquals(0, numberOfReleasedTickets);
+        assertEquals(1, ticketHoldSweeper.getNumberOfHolds());
+        assertFalse(activeHold.isFinished());
+        assertEquals(1, inventory.getTicketsHeld(Type.DAY));
+    }
+
+    @Test
+    void should_not_oversell_for_4000_concurrent_carts() throws Exception {
+        // given 4000 carts with 1 to 3 tickets for 300 tickets of every type
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager = helpClasses.exampleTicketManager(300, 300, 300);
+        TicketManager cartTicketManager = helpClasses.exampleTicketManager(100000, 100000, 100000);
+        Random random = new Random(42);
+        Type[] types = Type.values();
+
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            Client client = helpClasses.exampleClient();
+            int numberOfTickets = 1 + random.nextInt(3);
+            for (int j = 0; j < numberOfTickets; j++) {
+                client.addTicket(types[random.nextInt(types.length)], cartTicketManager);
+            }
+            clients.add(client);
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        AtomicInteger successfulCarts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Client client : clients) {
+            futures.add(executor.submit(() -> {
+                try {
+                    ticketManager.sellTickets(client);
+                    successfulCarts.incrementAndGet();
+                } catch (TicketNotAvailableException e) {
+                    // sold out for this cart
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then every sold ticket is in exactly one inventory and no counter is negative
+        int[] ticketsInInventories = TicketInventory.emptyCart();
+        int clientsWithTickets = 0;
+        for (Client client : clients) {
+            if (client.getInventorySize() > 0) {
+                clientsWithTickets++;
+            }
+            for (Order_ order : client.getOrders_()) {
+                ticketsInInventories[Type.DAY.ordinal()] += order.getNumberOfTickets(Type.DAY);
+                ticketsInInventories[Type.CAMPING.ordinal()] += order.getNumberOfTickets(Type.CAMPING);
+                ticketsInInventories[Type.VIP.ordinal()] += order.getNumberOfTickets(Type.VIP);
+            }
+        }
+        assertEquals(successfulCarts.get(), clientsWithTickets);
+        assertTrue(ticketManager.getNumberOfDayTicketsLeft() >= 0);
+        assertTrue(ticketManager.getNumberOfCampingTicketsLeft() >= 0);
+        assertTrue(ticketManager.getNumberOfVipTicketsLeft() >= 0);
+        assertEquals(ticketManager.getNumberOfSoldDayTickets(), ticketsInInventories[Type.DAY.ordinal()]);
+        assertEquals(ticketManager.getNumberOfSoldCampingTickets(), ticketsInInventories[Type.CAMPING.ordinal()]);
+        assertEquals(ticketManager.getNumberOfSoldVipTickets(), ticketsInInventories[Type.VIP.ordinal()]);
+    }
+}
@@ -0,0 +1,171 @@
+package de.bord.festival.ticket;
+
+import de.bord.festival.exception.*;
+import de.bord.festival.helper.HelpClasses;
+import de.bord.festival.models.Client;
+import de.bord.festival.models.TicketManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TicketManagerLanesTest {
+
+    HelpClasses helpClasses;
+    TicketManager ticketManager1;
+    TicketManager ticketManager2;
+    TicketManager persistedTicketManager2;
+    SalesJournal salesJournal;
+    TicketHoldSweeper ticketHoldSweeper;
+    TicketManagerLanes ticketManagerLanes;
+
+    @BeforeEach
+    void initialize() throws Exception {
+        helpClasses = new HelpClasses();
+        ticketManager1 = helpClasses.exampleTicketManager(100, 100, 100);
+        ticketManager2 = helpClasses.exampleTicketManager(100, 100, 100);
+        persistedTicketManager2 = helpClasses.exampleTicketManager(100, 100, 100);
+        ticketHoldSweeper = new TicketHoldSweeper();
+        salesJournal = mock(SalesJournal.class);
+        when(salesJournal.getTicketManager(1L)).thenReturn(ticketManager1);
+        when(salesJournal.getTicketManager(2L)).thenReturn(ticketManager2);
+
+        ticketManagerLanes = new TicketManagerLanes(salesJournal, ticketHoldSweeper, 2);
+    }
+
+    @AfterEach
+    void stop() {
+        ticketManagerLanes.stop();
+    }
+
+    @Test
+    void should_run_all_changes_of_one_ticket_manager_in_one_lane() {
+        // given
+        Set<String> lanesOfTicketManager1 = Collections.synchronizedSet(new HashSet<>());
+        Set<String> lanesOfTicketManager2 = Collections.synchronizedSet(new HashSet<>());
+        List<CompletableFuture<Void>> changes = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            changes.add(ticketManagerLanes.submit(1L, ticketManager -> {
+                lanesOfTicketManager1.add(Thread.currentThread().getName());
+                return null;
+            }));
+            changes.add(ticketManagerLanes.submit(2L, ticketManager -> {
+                lanesOfTicketManager2.add(Thread.currentThread().getName());
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(changes.toArray(new CompletableFuture[0])).join();
+
+        // then
+        assertEquals(1, lanesOfTicketManager1.size());
+        assertEquals(1, lanesOfTicketManager2.size());
+        assertNotEquals(lanesOfTicketManager1, lanesOfTicketManager2);
+    }
+
+    @Test
+    void should_sell_held_ticket_to_the_reloaded_client() throws Exception {
+        // given a client, who is loaded again for the sale
+        Client client = helpClasses.exampleClient();
+        client.setId(7);
+        TicketManagerLanes.await(ticketManagerLanes.addTicket(1L, client, Type.DAY));
+        assertTrue(client.getHolds().isEmpty());
+
+        // when
+        TicketManagerLanes.await(ticketManagerLanes.sellTickets(1L, client));
+
+        // then the held ticket is sold, no second ticket is taken
+        assertEquals(1, ticketHoldSweeper.getNumberOfHolds());
+        assertEquals(99, ticketManager1.getNumberOfDayTicketsLeft());
+        assertTrue(ticketManager1.isAvailable(Type.DAY, 99));
+        assertEquals(1, client.getInventorySize());
+    }
+
+    @Test
+    void should_give_back_held_tickets_of_the_reloaded_client_with_clearCart() throws Exception {
+        // given
+        Client client = helpClasses.exampleClient();
+        client.setId(7);
+        TicketManagerLanes.await(ticketManagerLanes.addTicket(1L, client, Type.VIP));
+        TicketManagerLanes.await(ticketManagerLanes.addTicket(1L, client, Type.VIP));
+
+        // when
+        TicketManagerLanes.await(ticketManagerLanes.clearCart(1L, client));
+
+        // then
+        assertTrue(ticketManager1.isAvailable(Type.VIP, 100));
+        assertEquals(0, client.getCartSize());
+    }
+
+    @Test
+    void should_give_back_the_hold_if_the_cart_could_not_be_saved() throws Exception {
+        // given
+        Client client = helpClasses.exampleClient();
+        client.setId(7);
+        TicketHold hold = TicketManagerLanes.await(ticketManagerLanes.addTicket(1L, client, Type.VIP));
+
+        // when
+        ticketManagerLanes.releaseHold(1L, client.getId(), hold).join();
+
+        // then
+        assertTrue(hold.isFinished());
+        assertTrue(ticketManager1.isAvailable(Type.VIP, 100));
+        assertEquals(0, ticketManagerLanes.getNumberOfClientsWithHolds(1L));
+    }
+
+    @Test
+    void should_remove_the_client_after_the_sweeper_released_its_holds() throws Exception {
+        // given
+        TicketHoldSweeper sweeper = mock(TicketHoldSweeper.class);
+        TicketManagerLanes lanes = new TicketManagerLanes(salesJournal, sweeper, 2);
+        Client client = helpClasses.exampleClient();
+        client.setId(7);
+        TicketHold hold = TicketManagerLanes.await(lanes.addTicket(1L, client, Type.DAY));
+        ArgumentCaptor<Runnable> onRelease = ArgumentCaptor.forClass(Runnable.class);
+        verify(sweeper).register(eq(hold), onRelease.capture());
+        assertEquals(1, lanes.getNumberOfClientsWithHolds(1L));
+
+        // when the hold expires
+        hold.release();
+        onRelease.getValue().run();
+
+        // then
+        assertEquals(0, lanes.getNumberOfClientsWithHolds(1L));
+        lanes.stop();
+    }
+
+    @Test
+    void should_throw_TicketNotAvailableException_from_the_lane() {
+        // then
+        assertThrows(TicketNotAvailableException.class, () -> TicketManagerLanes.await(
+                ticketManagerLanes.submit(1L, ticketManager -> {
+                    throw new TicketNotAvailableException("No more tickets available");
+                })));
+    }
+
+    @Test
+    void should_save_the_price_level_with_the_sales_journal() throws Exception {
+        // given the journal changes the persisted ticket manager
+        when(salesJournal.changePriceLevel(eq(2L), any())).thenAnswer(invocation ->
+                invocation.<TicketManagerLanes.Change<?>>getArgument(1).apply(persistedTicketManager2));
+
+        // when
+        TicketManagerLanes.await(ticketManagerLanes.setAutomaticPriceLevelChange(2L, false));
+        boolean changed = TicketManagerLanes.await(ticketManagerLanes.setPriceLevel(2L, 2));
+
+        // then
+        assertTrue(changed);
+        assertEquals(2, persistedTicketManager2.getActualPriceLevelIndex());
+        verify(salesJournal, times(2)).changePriceLevel(eq(2L), any());
+        verify(salesJournal, never()).changePriceLevel(eq(1L), any());
+    }
+}
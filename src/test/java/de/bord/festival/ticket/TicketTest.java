@@ -116,7 +116,7 @@ public class TicketTest {
     }
 
     @Test
-    void should_return_182_47000000000003_for_ticketManager1_getIncomeTicketSales() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+    void should_return_182_47_for_ticketManager1_getIncomeTicketSales() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
         // given ( exampleTicketManager.vipTicket.stdPrice = 100.00 )
         HelpClasses helpClasses = new HelpClasses();
         TicketManager ticketManager1 = helpClasses.exampleTicketManager();
@@ -126,7 +126,7 @@ public class TicketTest {
         ticketManager1.sellTickets(client1);
 
         // then
-        assertEquals(182.47000000000003, ticketManager1.getIncomeTicketSales());
+        assertEquals(182.47, ticketManager1.getIncomeTicketSales());
 
     }
 
@@ -263,7 +263,7 @@ public class TicketTest {
     }
 
     @Test
-    void should_return_182_47000000000003_for_client1_getExpenditure() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+    void should_return_182_47_for_client1_getExpenditure() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
         // given
         HelpClasses helpClasses = new HelpClasses();
         TicketManager ticketManager1 = helpClasses.exampleTicketManager();
@@ -273,7 +273,7 @@ public class TicketTest {
         ticketManager1.sellTickets(client1);
 
         // then
-        assertEquals(182.47000000000003, client1.getExpenditure());
+        assertEquals(182.47, client1.getExpenditure());
 
     }
 
@@ -443,5 +443,62 @@ public class TicketTest {
 
     }
 
+    @Test
+    void should_stay_on_level_0_if_exactly_50_percent_are_sold() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        // given 10 tickets, the first price level is valid until 50 percent are exceeded
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager1 = helpClasses.example2TicketManager();
+        Client client1 = helpClasses.exampleClient();
+        for (int i = 0; i < 5; i++) {
+            client1.addTicket(Type.CAMPING, ticketManager1);
+        }
+
+        //when
+        ticketManager1.sellTickets(client1);
+
+        //then
+        assertEquals(50, ticketManager1.totalNumberOfSoldTicketsInPercent());
+        assertEquals(0, ticketManager1.getActualPriceLevelIndex());
+    }
+
+    @Test
+    void should_return_2_for_getActualPriceLevelIndex_after_setAutomaticPriceLevelChange() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        // given 8 of 10 tickets sold with manual price level change
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager1 = helpClasses.example2TicketManager();
+        ticketManager1.setAutomaticPriceLevelChange(false);
+        Client client1 = helpClasses.exampleClient();
+        for (int i = 0; i < 6; i++) {
+            client1.addTicket(Type.CAMPING, ticketManager1);
+        }
+        client1.addTicket(Type.DAY, ticketManager1);
+        client1.addTicket(Type.DAY, ticketManager1);
+        ticketManager1.sellTickets(client1);
+
+        //when
+        ticketManager1.setAutomaticPriceLevelChange(true);
+
+        //then
+        assertEquals(2, ticketManager1.getActualPriceLevelIndex());
+        assertEquals(39.99, ticketManager1.getTicket(Type.CAMPING).getStdPrice());
+    }
 
+    @Test
+    void should_return_exact_income_after_100_sales() throws PriceLevelException, MailException, ClientNameException, TicketNotAvailableException {
+        // given
+        HelpClasses helpClasses = new HelpClasses();
+        TicketManager ticketManager1 = helpClasses.exampleTicketManager(1000, 1000, 1000);
+        Client client1 = helpClasses.exampleClient();
+
+        //when 100 camping tickets for 49.99 are sold one by one
+        for (int i = 0; i < 100; i++) {
+            client1.addTicket(Type.CAMPING, ticketManager1);
+            ticketManager1.sellTickets(client1);
+        }
+
+        //then
+        assertEquals(499900, ticketManager1.getIncomeTicketSalesInCents());
+        assertEquals(4999.00, ticketManager1.getIncomeTicketSales());
+        assertEquals(4999.00, client1.getExpenditure());
+    }
 }